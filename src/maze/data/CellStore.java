@@ -0,0 +1,39 @@
+package maze.data;
+
+/**
+ * The storage behind a {@link MazeContainer}. A cell is an int holding the
+ * bits defined in {@link MazeContainer} (open passages and flags).
+ *
+ * @version 1.0
+ */
+public interface CellStore {
+
+	/**
+	 * @param x x position
+	 * @param y y position
+	 * @return The bits of the cell
+	 */
+	int get(int x, int y);
+
+	/**
+	 * Replaces the bits of a cell
+	 * @param x x position
+	 * @param y y position
+	 * @param bits The new content of the cell
+	 */
+	void set(int x, int y, int bits);
+
+	/**
+	 * @param index The row-major index of the cell, see
+	 *            {@link MazeContainer#index(int, int)}
+	 * @return The bits of the cell
+	 */
+	int get(int index);
+
+	/**
+	 * Replaces the bits of a cell
+	 * @param index The row-major index of the cell
+	 * @param bits The new content of the cell
+	 */
+	void set(int index, int bits);
+}
@@ -0,0 +1,197 @@
+package maze.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import maze.generator.MazeGenerators;
+import maze.generator.MazeSink;
+
+/**
+ * A storage that cuts the maze into square chunks which are generated on
+ * demand and kept in a bounded LRU cache. An evicted chunk is simply
+ * generated again the next time it is needed, so the memory used does not
+ * depend on the size of the maze.
+ *
+ * Each chunk is a perfect maze generated from a seed derived from the maze ID
+ * and the position of the chunk. The chunks themselves are connected as a
+ * binary tree : every chunk but the first one opens a single door towards its
+ * north or its west neighbour, which makes the whole maze perfect as well. The
+ * doors only depend on the maze ID, hence any chunk can be generated without
+ * looking at its neighbours.
+ *
+ * A chunk that is modified (walls or flags) can no longer be regenerated, it
+ * is pinned in memory. This storage is not thread-safe.
+ *
+ * @version 1.0
+ */
+public class ChunkedCellStore implements CellStore {
+	private final int width, height;
+	private final int mazeID;
+
+	// Chunks are chunkSize x chunkSize cells, chunkSize being a power of two
+	private final int shift, mask;
+
+	private final Map<Long, byte[]> cache;
+	private final Map<Long, byte[]> pinned = new HashMap<>();
+
+	// The last chunk accessed, most accesses stay in the same chunk
+	private long lastKey = -1;
+	private byte[] lastChunk;
+
+	private long generated;
+
+	/**
+	 * @param width Width of the whole maze
+	 * @param height Height of the whole maze
+	 * @param mazeID The unique ID of the maze
+	 * @param chunkSize The side of a chunk, a power of two
+	 * @param maxChunks The maximum number of unmodified chunks kept in memory
+	 */
+	public ChunkedCellStore(int width, int height, int mazeID, int chunkSize, int maxChunks) {
+		if (Integer.bitCount(chunkSize) != 1)
+			throw new IllegalArgumentException("Chunk size must be a power of two: " + chunkSize);
+
+		this.width = width;
+		this.height = height;
+		this.mazeID = mazeID;
+		shift = Integer.numberOfTrailingZeros(chunkSize);
+		mask = chunkSize - 1;
+
+		cache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > maxChunks;
+			}
+		};
+	}
+
+	/**
+	 * @return The number of chunks currently in memory
+	 */
+	public int residentChunks() {
+		return cache.size() + pinned.size();
+	}
+
+	/**
+	 * @return The number of chunks generated so far, including regenerations
+	 */
+	public long generatedChunks() {
+		return generated;
+	}
+
+	@Override
+	public int get(int x, int y) {
+		return chunk(x >> shift, y >> shift)[((y & mask) << shift) | (x & mask)];
+	}
+
+	@Override
+	public void set(int x, int y, int bits) {
+		long key = key(x >> shift, y >> shift);
+		byte[] chunk = pinned.get(key);
+		if (chunk == null) {
+			chunk = chunk(x >> shift, y >> shift);
+			cache.remove(key);
+			pinned.put(key, chunk);
+		}
+		chunk[((y & mask) << shift) | (x & mask)] = (byte) bits;
+	}
+
+	@Override
+	public int get(int index) {
+		return get(index % width, index / width);
+	}
+
+	@Override
+	public void set(int index, int bits) {
+		set(index % width, index / width, bits);
+	}
+
+	private static long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+	}
+
+	private byte[] chunk(int cx, int cy) {
+		long key = key(cx, cy);
+		if (key == lastKey)
+			return lastChunk;
+
+		byte[] chunk = pinned.get(key);
+		if (chunk == null)
+			chunk = cache.get(key);
+		if (chunk == null) {
+			chunk = generate(cx, cy);
+			cache.put(key, chunk);
+		}
+
+		lastKey = key;
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	/**
+	 * Generates the content of a chunk, including the doors to its neighbours
+	 */
+	private byte[] generate(int cx, int cy) {
+		int size = mask + 1;
+		int x0 = cx << shift, y0 = cy << shift;
+		int w = Math.min(size, width - x0);
+		int h = Math.min(size, height - y0);
+
+		byte[] chunk = new byte[size * size];
+		MazeSink sink = new MazeSink() {
+			@Override
+			public void carve(int x, int y, int passages) {
+				chunk[(y << shift) | x] |= passages;
+			}
+
+			@Override
+			public int passages(int x, int y) {
+				return chunk[(y << shift) | x];
+			}
+		};
+		MazeGenerators.forName(MazeGenerators.NAMES[0]).generate(w, h, (int) hash(cx, cy, 0), sink);
+
+		// Our own door, towards the north or the west
+		if (opensNorth(cx, cy))
+			chunk[doorOffset(cx, cy, w)] |= MazeContainer.OPEN_NORTH;
+		else if (cx > 0)
+			chunk[doorOffset(cx, cy, h) << shift] |= MazeContainer.OPEN_WEST;
+
+		// The doors of the east and south neighbours
+		if (x0 + size < width && !opensNorth(cx + 1, cy))
+			chunk[(doorOffset(cx + 1, cy, h) << shift) | (w - 1)] |= MazeContainer.OPEN_EAST;
+		if (y0 + size < height && opensNorth(cx, cy + 1))
+			chunk[((h - 1) << shift) | doorOffset(cx, cy + 1, w)] |= MazeContainer.OPEN_SOUTH;
+
+		generated++;
+		return chunk;
+	}
+
+	/**
+	 * @return True if the chunk has its door to the north, false if it is to
+	 *         the west (or if it is the first chunk, which has none)
+	 */
+	private boolean opensNorth(int cx, int cy) {
+		if (cy == 0)
+			return false;
+		if (cx == 0)
+			return true;
+		return (hash(cx, cy, 1) & 1) == 0;
+	}
+
+	/**
+	 * @param length The length of the border where the door is
+	 * @return The position of the door along the border
+	 */
+	private int doorOffset(int cx, int cy, int length) {
+		return (int) ((hash(cx, cy, 2) >>> 1) % length);
+	}
+
+	private long hash(int cx, int cy, int salt) {
+		long z = mazeID * 0x9E3779B97F4A7C15L + key(cx, cy) * 0xC2B2AE3D27D4EB4FL + salt;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
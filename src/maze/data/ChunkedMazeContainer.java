@@ -0,0 +1,81 @@
+package maze.data;
+
+/**
+ * A maze that is generated on demand, chunk by chunk, and that only keeps a
+ * bounded number of chunks in memory. See {@link ChunkedCellStore}.
+ *
+ * The cells can be accessed by position for any size. Access by index (see
+ * {@link #index(int, int)}) is only possible while the position of the
+ * cell fits in an int, the exit of a larger maze is given by
+ * {@link #getExitX()} and {@link #getExitY()}.
+ *
+ * @version 1.1
+ */
+public class ChunkedMazeContainer extends MazeContainer {
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+	public static final int DEFAULT_MAX_CHUNKS = 256;
+
+	private final ChunkedCellStore store;
+
+	/**
+	 * Creates a maze with 256 x 256 chunks, keeping at most 256 of them
+	 * @param x Width
+	 * @param y Height
+	 * @param mazeID The unique ID of the maze
+	 */
+	public ChunkedMazeContainer(int x, int y, int mazeID) {
+		this(x, y, mazeID, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS);
+	}
+
+	/**
+	 * @param x Width
+	 * @param y Height
+	 * @param mazeID The unique ID of the maze
+	 * @param chunkSize The side of a chunk, a power of two
+	 * @param maxChunks The maximum number of unmodified chunks kept in memory
+	 */
+	public ChunkedMazeContainer(int x, int y, int mazeID, int chunkSize, int maxChunks) {
+		this(x, y, mazeID, new ChunkedCellStore(x, y, mazeID, chunkSize, maxChunks));
+	}
+
+	private ChunkedMazeContainer(int x, int y, int mazeID, ChunkedCellStore store) {
+		super(x, y, mazeID, store);
+		this.store = store;
+
+		setInitialPositions(true);
+	}
+
+	/**
+	 * @return The storage, for statistics
+	 */
+	public ChunkedCellStore getStore() {
+		return store;
+	}
+
+	public static void main(String[] args) {
+		// A billion cells
+		ChunkedMazeContainer mc = new ChunkedMazeContainer(40000, 25000, 1234);
+
+		// Walk along the passages, always turning left when possible
+		int x = 0, y = 0, dir = 0;
+		int[] dx = { 0, 1, 0, -1 }, dy = { -1, 0, 1, 0 };
+		int[] open = { OPEN_NORTH, OPEN_EAST, OPEN_SOUTH, OPEN_WEST };
+		for (long step = 0; step < 50_000_000; step++) {
+			int cell = mc.getCell(x, y);
+			for (int turn = 3; turn < 7; turn++) {
+				int d = (dir + turn) % 4;
+				if ((cell & open[d]) != 0) {
+					dir = d;
+					break;
+				}
+			}
+			x += dx[dir];
+			y += dy[dir];
+		}
+
+		Runtime rt = Runtime.getRuntime();
+		System.out.println("Walked to (" + x + ", " + y + "), " + mc.getStore().residentChunks()
+				+ " chunks in memory, " + mc.getStore().generatedChunks() + " generated, "
+				+ (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024) + " MB used");
+	}
+}
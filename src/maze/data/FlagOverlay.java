@@ -0,0 +1,60 @@
+package maze.data;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the flags (exit, players) of the few cells that have some, for the
+ * storages that only hold the passages
+ *
+ * The cells are kept sorted in an int array, with their flags next to them,
+ * so that reading a cell does not box anything : a maze always has a few
+ * flags, and the cells are read one after the other by the solvers.
+ *
+ * @version 1.1
+ */
+class FlagOverlay {
+	private static final int FLAGS = ~MazeContainer.OPEN_MASK;
+
+	// The cells having flags, sorted, and their flags
+	private int[] cells = new int[4], flags = new int[4];
+	private int size;
+
+	/**
+	 * @return The flags of a cell
+	 */
+	int get(int index) {
+		if (size == 0)
+			return 0;
+		int i = Arrays.binarySearch(cells, 0, size, index);
+		return i >= 0 ? flags[i] : 0;
+	}
+
+	/**
+	 * Keeps the flags of the given bits
+	 */
+	void set(int index, int bits) {
+		int f = bits & FLAGS;
+		int i = Arrays.binarySearch(cells, 0, size, index);
+
+		if (i >= 0) {
+			if (f != 0) {
+				flags[i] = f;
+			} else {
+				System.arraycopy(cells, i + 1, cells, i, size - i - 1);
+				System.arraycopy(flags, i + 1, flags, i, size - i - 1);
+				size--;
+			}
+		} else if (f != 0) {
+			i = -i - 1;
+			if (size == cells.length) {
+				cells = Arrays.copyOf(cells, size * 2);
+				flags = Arrays.copyOf(flags, size * 2);
+			}
+			System.arraycopy(cells, i, cells, i + 1, size - i);
+			System.arraycopy(flags, i, flags, i + 1, size - i);
+			cells[i] = index;
+			flags[i] = f;
+			size++;
+		}
+	}
+}
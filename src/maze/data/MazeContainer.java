@@ -1,54 +1,94 @@
 package maze.data;
 
+import java.util.Arrays;
 import java.util.Random;
 
-import maze.generator.MazeGen;
+import maze.generator.MazeGenerators;
+import maze.generator.MazeSink;
 
 /**
  * The maze that contains all the cells
- * 
+ *
+ * The cells are kept in a {@link CellStore}, by default packed in a single
+ * byte array, one byte per cell, stored row-major (see {@link #index(int, int)}).
+ * The four low bits of a cell are its open passages (a cleared bit means there
+ * is a wall on that side), the following bits are the exit and players flags.
+ *
+ * On top of the walls, each cell has a cost to enter it, from 1 (the default)
+ * to {@link #MAX_COST} : mud, doors... The costs are kept row by row, one
+ * byte per cell, a row only once one of its cells is given a cost (so that a
+ * chunked maze stays lazy), and are used by the weighted graph of the maze
+ * (see {@link maze.solvers.MazeGraph#weighted(MazeContainer)}).
+ *
  * @author Pierre-André Mudry
- * @version 1.3
+ * @version 1.8
  */
-public class MazeContainer {
+public class MazeContainer implements MazeSink {
+	/**
+	 * Bits of a packed cell
+	 */
+	public static final int OPEN_NORTH = 1;
+	public static final int OPEN_SOUTH = 2;
+	public static final int OPEN_EAST = 4;
+	public static final int OPEN_WEST = 8;
+	public static final int OPEN_MASK = OPEN_NORTH | OPEN_SOUTH | OPEN_EAST | OPEN_WEST;
+	public static final int EXIT = 16;
+	public static final int P1 = 32;
+	public static final int P2 = 64;
+
+	// The largest cost of a cell
+	public static final int MAX_COST = 255;
+
 	// The number of cells
 	public final int nCellsX, nCellsY;
 
+	// The unique ID of the maze, the seed it was generated with
+	public final int mazeID;
+
 	// The maze itself
-	public MazeElem[][] maze;		
-	
+	private final CellStore cells;
+
+	// True if every cell has an int index, see index(int, int)
+	private final boolean indexed;
+
+	// The row-major position of the exit, -1 if not known, a long as the maze may have more cells than an int can count
+	private long exit = -1;
+
+	// The cost to enter each cell, unsigned, by row, null (or a null row) while they all cost 1
+	private byte[][] costs;
+
+	// Changes each time a passage, a cost or the exit changes
+	private int revision;
+
 	/**
 	 * Creates a specific maze
 	 * @param x Width
 	 * @param y Height
 	 * @param mazeID The unique ID of the maze
 	 */
-	public MazeContainer(int x, int y, int mazeID){			
-		nCellsX = x;
-		nCellsY = y;
-		maze = new MazeElem[x][y];					
-		
-		// Generate the maze
-		MazeGen mg = new MazeGen(x, y, mazeID);
-
-		// Convert the maze to something nicer to work with
-		for (int i = 0; i < nCellsX; i++) {
-			for (int j = 0; j < nCellsY; j++) {
-				MazeElem e = new MazeElem();
-				e.wallSouth = mg.wallSouth(i, j);
-				e.wallWest = mg.wallWest(i, j);
-				e.wallNorth = mg.wallNorth(i, j);
-				e.wallEast = mg.wallEast(i, j);
-				maze[i][j] = e;
-			}
-		}
+	public MazeContainer(int x, int y, int mazeID){
+		this(x, y, mazeID, MazeGenerators.NAMES[0]);
+	}
+
+	/**
+	 * Creates a specific maze using a given generation algorithm
+	 * @param x Width
+	 * @param y Height
+	 * @param mazeID The unique ID of the maze
+	 * @param algorithm The name of the algorithm, see {@link MazeGenerators}
+	 */
+	public MazeContainer(int x, int y, int mazeID, String algorithm){
+		this(x, y, mazeID, new PackedCellStore(x, y));
+
+		// Generate the maze, the passages are carved directly in the cells
+		MazeGenerators.forName(algorithm).generate(x, y, mazeID, this);
 
 		/**
 		 * Generate initial positions for players and for the exit
 		 */
 		setInitialPositions(true);
 	}
-	
+
 	/**
 	 * Generate a fixed maze (always the same)
 	 * @param x Width
@@ -58,27 +98,240 @@ public class MazeContainer {
 		this(x, y, 1234);
 	}
 
+	/**
+	 * Creates a maze over an existing storage, nothing is generated and no
+	 * position is set
+	 * @param x Width
+	 * @param y Height
+	 * @param mazeID The unique ID of the maze
+	 * @param cells The storage of the cells
+	 */
+	public MazeContainer(int x, int y, int mazeID, CellStore cells) {
+		nCellsX = x;
+		nCellsY = y;
+		this.mazeID = mazeID;
+		this.cells = cells;
+		indexed = (long) x * y <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @param x x position
+	 * @param y y position
+	 * @return The position of the cell in the packed (row-major) storage
+	 * @throws IllegalStateException if the maze has too many cells for the
+	 *             position to fit in an int
+	 */
+	public int index(int x, int y) {
+		if (indexed)
+			return y * nCellsX + x;
+		return toInt((long) y * nCellsX + x);
+	}
+
+	private static int toInt(long index) {
+		if (index > Integer.MAX_VALUE)
+			throw new IllegalStateException("The maze has too many cells to be indexed by an int");
+		return (int) index;
+	}
+
+	/**
+	 * @param index The index of the cell, see {@link #index(int, int)}
+	 * @return The packed bits of the cell
+	 */
+	public int getCell(int index) {
+		return cells.get(index);
+	}
+
+	public int getCell(int x, int y) {
+		return cells.get(x, y);
+	}
+
+	/**
+	 * Replaces the packed bits of a cell
+	 * @param index The index of the cell, see {@link #index(int, int)}
+	 * @param bits The new content of the cell
+	 */
+	public void setCell(int index, int bits) {
+		int old = cells.get(index);
+		cells.set(index, bits);
+		track(index, old, bits);
+	}
+
+	public void setCell(int x, int y, int bits) {
+		int old = cells.get(x, y);
+		cells.set(x, y, bits);
+		track((long) y * nCellsX + x, old, bits);
+	}
+
+	private void track(long index, int old, int bits) {
+		if (((old ^ bits) & (OPEN_MASK | EXIT)) != 0)
+			revision++;
+
+		if ((bits & EXIT) != 0)
+			exit = index;
+		else if (index == exit)
+			exit = -1;
+	}
+
+	/**
+	 * @param index The index of the cell, see {@link #index(int, int)}
+	 * @return The cost to enter the cell, 1 unless another one was set
+	 */
+	public int getCost(int index) {
+		return getCost(index % nCellsX, index / nCellsX);
+	}
+
+	public int getCost(int x, int y) {
+		if (costs == null || costs[y] == null)
+			return 1;
+		return costs[y][x] & 0xff;
+	}
+
+	/**
+	 * Changes the cost to enter a cell
+	 * @param index The index of the cell, see {@link #index(int, int)}
+	 * @param cost The new cost, from 1 to {@link #MAX_COST}
+	 */
+	public void setCost(int index, int cost) {
+		setCost(index % nCellsX, index / nCellsX, cost);
+	}
+
+	public void setCost(int x, int y, int cost) {
+		if (cost < 1 || cost > MAX_COST)
+			throw new IllegalArgumentException("The cost of a cell must be between 1 and " + MAX_COST);
+		if (getCost(x, y) == cost)
+			return;
+
+		if (costs == null)
+			costs = new byte[nCellsY][];
+		if (costs[y] == null) {
+			costs[y] = new byte[nCellsX];
+			Arrays.fill(costs[y], (byte) 1);
+		}
+		costs[y][x] = (byte) cost;
+		revision++;
+	}
+
+	/**
+	 * @return True if a cell costs more than 1 or did at some point
+	 */
+	public boolean hasCosts() {
+		return costs != null;
+	}
+
+	/**
+	 * @return A number that changes each time a passage is opened or closed,
+	 *         a cost is changed or the exit is moved, through this container.
+	 *         The players moving do not change it. It tells whether what was
+	 *         computed from the maze is still valid.
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
+	/**
+	 * @return The index of the exit (see {@link #index(int, int)}), or -1 if
+	 *         the maze has none. The exit is remembered when it is set, the
+	 *         cells are only searched if it was set directly in the storage.
+	 * @throws IllegalStateException if the index of the exit does not fit in
+	 *             an int, see {@link #getExitX()} and {@link #getExitY()}
+	 */
+	public int getExit() {
+		long found = findExit();
+		return found < 0 ? -1 : toInt(found);
+	}
+
+	/**
+	 * @return The x-coordinate of the exit, -1 if the maze has none
+	 */
+	public int getExitX() {
+		long found = findExit();
+		return found < 0 ? -1 : (int) (found % nCellsX);
+	}
+
+	/**
+	 * @return The y-coordinate of the exit, -1 if the maze has none
+	 */
+	public int getExitY() {
+		long found = findExit();
+		return found < 0 ? -1 : (int) (found / nCellsX);
+	}
+
+	private long findExit() {
+		if (exit < 0 || (getCell((int) (exit % nCellsX), (int) (exit / nCellsX)) & EXIT) == 0) {
+			exit = -1;
+			for (int y = 0; y < nCellsY && exit < 0; y++)
+				for (int x = 0; x < nCellsX && exit < 0; x++)
+					if ((getCell(x, y) & EXIT) != 0)
+						exit = (long) y * nCellsX + x;
+		}
+		return exit;
+	}
+
+	@Override
+	public void carve(int x, int y, int passages) {
+		int old = cells.get(x, y);
+		int bits = old | (passages & OPEN_MASK);
+		if (bits != old) {
+			cells.set(x, y, bits);
+			revision++;
+		}
+	}
+
+	@Override
+	public int passages(int x, int y) {
+		return getCell(x, y) & OPEN_MASK;
+	}
+
+	public boolean wallWest(int x, int y) {
+		return (getCell(x, y) & OPEN_WEST) == 0;
+	}
+
+	public boolean wallNorth(int x, int y) {
+		return (getCell(x, y) & OPEN_NORTH) == 0;
+	}
+
+	public boolean wallEast(int x, int y) {
+		return (getCell(x, y) & OPEN_EAST) == 0;
+	}
+
+	public boolean wallSouth(int x, int y) {
+		return (getCell(x, y) & OPEN_SOUTH) == 0;
+	}
+
+	/**
+	 * Gives a view on a cell of the maze. The view does not copy anything, it
+	 * reads and writes the packed storage directly and can be moved around
+	 * using {@link MazeElem#moveTo(int, int)}.
+	 *
+	 * @param x x position
+	 * @param y y position
+	 * @return A {@link MazeElem} for the cell
+	 */
+	public MazeElem getElem(int x, int y) {
+		return new MazeElem(this, x, y);
+	}
+
 	/**
 	 * Creates initial positions for the two players.
-	 * 
+	 *
 	 * @param fixed Chooses either random position on the first and last column
 	 *            or fixed positions for the players
 	 */
-	protected void setInitialPositions(boolean fixed) {		
+	protected void setInitialPositions(boolean fixed) {
 		if (fixed) {
 			/**
 			 * First player top left, second player top right and the exit down
-			 * in the middle			 */			
-			maze[0][0].p1Present = true;							
-			maze[(nCellsX - 1) / 2][nCellsY - 1].isExit = true;
+			 * in the middle			 */
+			getElem(0, 0).setP1Present(true);
+			getElem((nCellsX - 1) / 2, nCellsY - 1).setExit(true);
 		} else {
 			Random rnd = new Random();
 			/**
 			 * Generate players' positions on the first and last column, resp.
 			 * Exit down in the middle
 			 */
-			maze[0][rnd.nextInt(nCellsY)].p1Present = true;					
-			maze[(nCellsX - 1) / 2][nCellsY - 1].isExit = true;
+			getElem(0, rnd.nextInt(nCellsY)).setP1Present(true);
+			getElem((nCellsX - 1) / 2, nCellsY - 1).setExit(true);
 		}
 	}
 }
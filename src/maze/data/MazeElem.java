@@ -2,23 +2,108 @@ package maze.data;
 
 /**
  * Content of a maze cell
+ *
+ * This is a view on the packed storage of a {@link MazeContainer}, nothing is
+ * stored here. A single view can be reused for a whole maze by moving it
+ * around with {@link #moveTo(int, int)}.
+ *
  * @author Pierre-André Mudry
- * @version 1.0
+ * @version 2.0
  */
 public class MazeElem {
+	// The maze we are looking at
+	private final MazeContainer mc;
+
+	// The position of the cell in the maze
+	private int x, y;
+
+	MazeElem(MazeContainer mc, int x, int y) {
+		this.mc = mc;
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Moves the view to another cell
+	 * @param x x position
+	 * @param y y position
+	 * @return This view
+	 */
+	public MazeElem moveTo(int x, int y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
 	// The walls
-	public boolean wallWest;
-	public boolean wallNorth;
-	public boolean wallEast;
-	public boolean wallSouth;
+	public boolean wallWest() {
+		return !has(MazeContainer.OPEN_WEST);
+	}
+
+	public boolean wallNorth() {
+		return !has(MazeContainer.OPEN_NORTH);
+	}
+
+	public boolean wallEast() {
+		return !has(MazeContainer.OPEN_EAST);
+	}
+
+	public boolean wallSouth() {
+		return !has(MazeContainer.OPEN_SOUTH);
+	}
+
+	public void setWallWest(boolean wall) {
+		set(MazeContainer.OPEN_WEST, !wall);
+	}
+
+	public void setWallNorth(boolean wall) {
+		set(MazeContainer.OPEN_NORTH, !wall);
+	}
+
+	public void setWallEast(boolean wall) {
+		set(MazeContainer.OPEN_EAST, !wall);
+	}
+
+	public void setWallSouth(boolean wall) {
+		set(MazeContainer.OPEN_SOUTH, !wall);
+	}
 
 	/**
 	 *  Player related
-	 */	
+	 */
 	// True if this element is the exit of the maze
-	public boolean isExit;	
+	public boolean isExit() {
+		return has(MazeContainer.EXIT);
+	}
+
 	// True if player1 is located here
-	public boolean p1Present;
+	public boolean p1Present() {
+		return has(MazeContainer.P1);
+	}
+
 	// True if player2 is located here
-	public boolean p2Present;
+	public boolean p2Present() {
+		return has(MazeContainer.P2);
+	}
+
+	public void setExit(boolean exit) {
+		set(MazeContainer.EXIT, exit);
+	}
+
+	public void setP1Present(boolean present) {
+		set(MazeContainer.P1, present);
+	}
+
+	public void setP2Present(boolean present) {
+		set(MazeContainer.P2, present);
+	}
+
+	private boolean has(int bit) {
+		return (mc.getCell(x, y) & bit) != 0;
+	}
+
+	private void set(int bit, boolean value) {
+		int cell = mc.getCell(x, y);
+		mc.setCell(x, y, value ? cell | bit : cell & ~bit);
+	}
 }
@@ -0,0 +1,118 @@
+package maze.data;
+
+/**
+ * Compares the memory used by the packed {@link MazeContainer} storage with
+ * the former layout, where each cell was a full object with seven booleans
+ * stored in a {@code MazeElem[x][y]} array. The estimates for the
+ * {@link NibbleCellStore} and the {@link SpanningTreeCellStore} are given as
+ * well.
+ *
+ * The estimates assume a 64 bits JVM with compressed references (12 bytes
+ * object headers, 16 bytes array headers, 8 bytes alignment). The
+ * measurements are taken on the live heap and are only indicative.
+ *
+ * Usage : {@code java maze.data.MemoryFootprint [size...]}
+ *
+ * @version 1.0
+ */
+public class MemoryFootprint {
+
+	// The former content of a cell, kept here only for the comparison
+	private static class ObjectCell {
+		boolean wallWest, wallNorth, wallEast, wallSouth;
+		boolean isExit, p1Present, p2Present;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * @return The estimated size in bytes of a {@code MazeElem[x][y]} grid
+	 */
+	public static long estimateObjectGrid(int x, int y) {
+		long cell = align(12 + 7);
+		long column = align(16 + 4L * y);
+		return align(16 + 4L * x) + x * (column + y * cell);
+	}
+
+	/**
+	 * @return The estimated size in bytes of the packed storage
+	 */
+	public static long estimatePacked(int x, int y) {
+		return align(16 + (long) x * y);
+	}
+
+	/**
+	 * @return The estimated size in bytes of a {@link NibbleCellStore}
+	 */
+	public static long estimateNibble(int x, int y) {
+		return align(16 + ((long) x * y + 1) / 2);
+	}
+
+	/**
+	 * @return The estimated size in bytes of a {@link SpanningTreeCellStore}
+	 */
+	public static long estimateSpanningTree(int x, int y) {
+		return align(16 + 8 * (((long) x * y + 31) / 32));
+	}
+
+	private static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private static long measureObjectGrid(int x, int y) {
+		long before = usedMemory();
+		ObjectCell[][] grid = new ObjectCell[x][y];
+		for (int i = 0; i < x; i++)
+			for (int j = 0; j < y; j++)
+				grid[i][j] = new ObjectCell();
+		long after = usedMemory();
+		// Keep the grid alive until it has been measured
+		return grid[x - 1][y - 1] != null ? after - before : 0;
+	}
+
+	private static long measurePacked(int x, int y) {
+		long before = usedMemory();
+		MazeContainer mc = new MazeContainer(x, y);
+		long after = usedMemory();
+		return mc.nCellsX > 0 ? after - before : 0;
+	}
+
+	private static String mb(long bytes) {
+		return String.format("%10.1f MB", bytes / (1024.0 * 1024.0));
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = { 500, 1000, 2000, 10000 };
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+
+		long maxHeap = Runtime.getRuntime().maxMemory();
+
+		System.out.println("      size |  objects (est.) |   packed (est.) | objects (meas.) |  packed (meas.)"
+				+ " |   nibble (est.) |     tree (est.)");
+		for (int size : sizes) {
+			long objects = estimateObjectGrid(size, size);
+			long packed = estimatePacked(size, size);
+
+			String objMeasured = "       skipped", packedMeasured = "       skipped";
+
+			// Only measure what comfortably fits in the heap
+			if (objects < maxHeap / 2)
+				objMeasured = mb(measureObjectGrid(size, size));
+			if (packed * 5 < maxHeap / 2)
+				packedMeasured = mb(measurePacked(size, size));
+
+			System.out.println(String.format("%10s | %s | %s | %s | %s | %s | %s",
+					size + "x" + size, mb(objects), mb(packed), objMeasured, packedMeasured,
+					mb(estimateNibble(size, size)), mb(estimateSpanningTree(size, size))));
+		}
+	}
+}
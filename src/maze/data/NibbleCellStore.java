@@ -0,0 +1,65 @@
+package maze.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A storage over a {@link ByteBuffer} holding 4 bits per cell, row-major, two
+ * cells per byte with the first one in the low nibble. This is the layout of
+ * the maze files, which lets a mapped file be used without copying it.
+ *
+ * The flags (exit, players) do not fit in a nibble and are kept aside, hence
+ * they can be changed even on a read-only buffer. Changing the walls needs a
+ * writable buffer.
+ *
+ * @version 1.0
+ */
+public class NibbleCellStore implements CellStore {
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final int width;
+	private final FlagOverlay flags = new FlagOverlay();
+
+	/**
+	 * @param buffer The buffer holding the cells
+	 * @param offset The position of the first cell in the buffer
+	 * @param width The width of the maze
+	 */
+	public NibbleCellStore(ByteBuffer buffer, int offset, int width) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.width = width;
+	}
+
+	@Override
+	public int get(int index) {
+		int b = buffer.get(offset + (index >>> 1));
+		int passages = ((index & 1) == 0 ? b : b >>> 4) & MazeContainer.OPEN_MASK;
+		return passages | flags.get(index);
+	}
+
+	@Override
+	public void set(int index, int bits) {
+		int i = offset + (index >>> 1);
+		int b = buffer.get(i) & 0xFF;
+		int passages = bits & MazeContainer.OPEN_MASK;
+		int updated;
+		if ((index & 1) == 0)
+			updated = (b & 0xF0) | passages;
+		else
+			updated = (b & 0x0F) | (passages << 4);
+
+		if (updated != b)
+			buffer.put(i, (byte) updated);
+		flags.set(index, bits);
+	}
+
+	@Override
+	public int get(int x, int y) {
+		return get(y * width + x);
+	}
+
+	@Override
+	public void set(int x, int y, int bits) {
+		set(y * width + x, bits);
+	}
+}
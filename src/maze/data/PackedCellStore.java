@@ -0,0 +1,44 @@
+package maze.data;
+
+/**
+ * The default storage : one byte per cell in a single array, row-major
+ *
+ * @version 1.0
+ */
+public class PackedCellStore implements CellStore {
+	private final int width;
+	private final byte[] cells;
+
+	/**
+	 * Creates a storage where all the walls are present
+	 * @param width Width
+	 * @param height Height
+	 */
+	public PackedCellStore(int width, int height) {
+		if ((long) width * height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Maze too large: " + width + " x " + height);
+
+		this.width = width;
+		cells = new byte[width * height];
+	}
+
+	@Override
+	public int get(int x, int y) {
+		return cells[y * width + x];
+	}
+
+	@Override
+	public void set(int x, int y, int bits) {
+		cells[y * width + x] = (byte) bits;
+	}
+
+	@Override
+	public int get(int index) {
+		return cells[index];
+	}
+
+	@Override
+	public void set(int index, int bits) {
+		cells[index] = (byte) bits;
+	}
+}
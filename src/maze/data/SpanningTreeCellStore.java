@@ -0,0 +1,145 @@
+package maze.data;
+
+/**
+ * A storage for perfect mazes only, using 2 bits per cell. A perfect maze is
+ * a spanning tree of the grid : once rooted, every cell but the root has a
+ * single parent and its passages are the one to its parent plus the ones of
+ * its children. Only the direction to the parent is stored, the passages of a
+ * cell are decoded from its own direction and the ones of its four neighbours.
+ *
+ * The walls cannot be changed, the flags (exit, players) can.
+ *
+ * @version 1.0
+ */
+public class SpanningTreeCellStore implements CellStore {
+	// Directions, the passage bit of direction d is 1 << d
+	private static final int N = 0, S = 1, E = 2, W = 3;
+	private static final int[] OPPOSITE = { S, N, W, E };
+
+	private final int width, height;
+	private final int root;
+
+	// The direction to the parent of each cell, 32 cells per long
+	private final long[] parents;
+
+	private final FlagOverlay flags = new FlagOverlay();
+
+	/**
+	 * Encodes a maze, rooted at its top left cell
+	 * @param mc The maze, which must be perfect
+	 * @throws IllegalArgumentException if the maze is not perfect
+	 */
+	public SpanningTreeCellStore(MazeContainer mc) {
+		width = mc.nCellsX;
+		height = mc.nCellsY;
+		root = 0;
+
+		long n = (long) width * height;
+		if (n > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Maze too large: " + width + " x " + height);
+		parents = new long[(int) ((n + 31) >>> 5)];
+
+		/**
+		 * Depth-first traversal without any stack : the way back is given by
+		 * the direction to the parent, which is stored as soon as a cell is
+		 * reached
+		 */
+		int x = 0, y = 0, dir = 0;
+		long reached = 1;
+		while (true) {
+			if (dir < 4) {
+				int i = y * width + x;
+				if ((i == root || dir != parent(i)) && (mc.getCell(x, y) & (1 << dir)) != 0) {
+					x += dx(dir);
+					y += dy(dir);
+					setParent(y * width + x, OPPOSITE[dir]);
+					dir = 0;
+
+					if (++reached > n)
+						throw new IllegalArgumentException("The maze has loops");
+				} else {
+					dir++;
+				}
+			} else {
+				int i = y * width + x;
+				if (i == root)
+					break;
+
+				// Back to the parent, then try the next direction
+				int up = parent(i);
+				x += dx(up);
+				y += dy(up);
+				dir = OPPOSITE[up] + 1;
+			}
+		}
+
+		if (reached != n)
+			throw new IllegalArgumentException("The maze is not connected");
+
+		for (int j = 0; j < height; j++)
+			for (int i = 0; i < width; i++) {
+				int cell = mc.getCell(i, j);
+				if ((cell & MazeContainer.OPEN_MASK) != get(i, j))
+					throw new IllegalArgumentException("Inconsistent walls at " + i + ", " + j);
+				flags.set(j * width + i, cell);
+			}
+	}
+
+	private static int dx(int dir) {
+		return dir == E ? 1 : dir == W ? -1 : 0;
+	}
+
+	private static int dy(int dir) {
+		return dir == S ? 1 : dir == N ? -1 : 0;
+	}
+
+	private int parent(int i) {
+		return (int) (parents[i >>> 5] >>> ((i & 31) << 1)) & 3;
+	}
+
+	private void setParent(int i, int dir) {
+		int shift = (i & 31) << 1;
+		parents[i >>> 5] = (parents[i >>> 5] & ~(3L << shift)) | ((long) dir << shift);
+	}
+
+	/**
+	 * @return True if cell i is a child of its neighbour in direction dir
+	 */
+	private boolean childOf(int i, int dir) {
+		return i != root && parent(i) == dir;
+	}
+
+	@Override
+	public int get(int x, int y) {
+		int i = y * width + x;
+		int passages = i != root ? 1 << parent(i) : 0;
+
+		if (y > 0 && childOf(i - width, S))
+			passages |= MazeContainer.OPEN_NORTH;
+		if (y < height - 1 && childOf(i + width, N))
+			passages |= MazeContainer.OPEN_SOUTH;
+		if (x < width - 1 && childOf(i + 1, W))
+			passages |= MazeContainer.OPEN_EAST;
+		if (x > 0 && childOf(i - 1, E))
+			passages |= MazeContainer.OPEN_WEST;
+
+		return passages | flags.get(i);
+	}
+
+	@Override
+	public void set(int x, int y, int bits) {
+		if ((bits & MazeContainer.OPEN_MASK) != (get(x, y) & MazeContainer.OPEN_MASK))
+			throw new UnsupportedOperationException("The walls of a spanning tree cannot be changed");
+		flags.set(y * width + x, bits);
+	}
+
+	@Override
+	public int get(int index) {
+		return get(index % width, index / width);
+	}
+
+	@Override
+	public void set(int index, int bits) {
+		set(index % width, index / width, bits);
+	}
+}
@@ -14,12 +14,13 @@ import javax.imageio.ImageIO;
 import maze.data.MazeContainer;
 import maze.data.MazeElem;
 import maze.solvers.AStar;
+import maze.solvers.Path;
 
 /**
  * A graphic view of a {@link MazeContainer}
  * 
  * @author Pierre-André Mudry
- * @version 2.1
+ * @version 2.2
  */
 public class GraphicDisplay {
 
@@ -57,7 +58,9 @@ public class GraphicDisplay {
 	// Contains the Display that is used to show the maze
 	public Display disp;
 
+	// The solution overlay, as a full array or as a path
 	int[][] solution;
+	Path path;
 
 	/**
 	 * Sets the message that will be displayed at the bottom of the screen
@@ -141,13 +144,11 @@ public class GraphicDisplay {
 			ys = border_top + strokeSize / 2;
 
 			// Draw the solution if required
-			if (solution != null) {
+			if (solution != null || path != null) {
 				for (int i = 0; i < nCellsX; i++) {
 					for (int j = 0; j < nCellsY; j++) {
-						MazeElem e = mazeContainer.maze[i][j];
-
 						// Draw solution
-						if (solution != null && solution[i][j] == 1) {
+						if ((solution != null && solution[i][j] == 1) || (path != null && path.contains(i, j))) {
 							g.setColor(new Color(200, 200, 250));
 							g.fillRect(xs, ys, wCell + strokeSize, hCell + strokeSize);
 							g.setColor(Color.black);
@@ -164,13 +165,14 @@ public class GraphicDisplay {
 			ys = border_top + strokeSize / 2;
 
 			// Draw the content of the frames
+			MazeElem e = mazeContainer.getElem(0, 0);
 			for (int i = 0; i < nCellsX; i++) {
 				// draw the north edge
 				for (int j = 0; j < nCellsY; j++) {
-					MazeElem e = mazeContainer.maze[i][j];
+					e.moveTo(i, j);
 
 					// Draw exit
-					if (e.isExit) {
+					if (e.isExit()) {
 						g.setColor(new Color(100, 100, 200));
 						g.fillRect(
 								xs + (int) Math.round(strokeSize / 2.0),
@@ -180,7 +182,7 @@ public class GraphicDisplay {
 					}
 
 					// Draw position for player 1
-					if (e.p1Present) {
+					if (e.p1Present()) {
 						g.setColor(Color.red);
 						g.fillOval(
 								xs + (int) Math.round(strokeSize / 2.0),
@@ -195,7 +197,7 @@ public class GraphicDisplay {
 						g.setStroke(new BasicStroke(strokeSize));
 					}
 
-					if (e.p2Present) {
+					if (e.p2Present()) {
 						g.setColor(Color.yellow);
 						g.fillOval(
 								xs + (int) Math.round(strokeSize / 2.0),
@@ -211,22 +213,22 @@ public class GraphicDisplay {
 					}
 
 					// Is there a north wall ?
-					if (e.wallNorth) {
+					if (e.wallNorth()) {
 						g.drawLine(xs, ys, xs + wCell + strokeSize, ys);
 					}
 
 					// Is there a left wall ?
-					if (e.wallWest) {
+					if (e.wallWest()) {
 						g.drawLine(xs, ys, xs, ys + hCell + strokeSize);
 					}
 
 					// Draw bottom for the last line
-					if ((j == nCellsY - 1) && (e.wallSouth)) {
+					if ((j == nCellsY - 1) && (e.wallSouth())) {
 						g.drawLine(xs, ys + hCell + strokeSize, xs + wCell + strokeSize, ys + hCell + strokeSize);
 					}
 
 					// Draw right for the last column
-					if ((i == nCellsX - 1) && (e.wallEast)) {
+					if ((i == nCellsX - 1) && (e.wallEast())) {
 						g.drawLine(xs + wCell + strokeSize, ys, xs + wCell + strokeSize, ys + hCell + strokeSize);
 					}
 
@@ -258,6 +260,19 @@ public class GraphicDisplay {
 		assert (solution.length == nCellsX);
 		assert (solution[0].length == nCellsY);
 		this.solution = solution;
+		this.path = null;
+	}
+
+	/**
+	 * Overlays a path, such as the ones given by
+	 * {@link AStar#findPath(MazeContainer, int, int, AStar.Mode)}, without
+	 * an array of the size of the maze
+	 * 
+	 * @param path The path to overlay
+	 */
+	public void setSolution(Path path) {
+		this.path = path;
+		this.solution = null;
 	}
 
 	/**
@@ -265,6 +280,7 @@ public class GraphicDisplay {
 	 */
 	public void clearSolution() {
 		this.solution = null;
+		this.path = null;
 	}
 
 	/**
@@ -1,7 +1,11 @@
 package maze.display;
 
+import java.io.PrintStream;
+
 import maze.data.MazeContainer;
 import maze.data.MazeElem;
+import maze.generator.EllerGenerator;
+import maze.generator.MazeRowSink;
 
 /**
  * A class that displays a textual version of the maze given in the form of a
@@ -19,8 +23,8 @@ public class TextDisplay {
 	 */
 	public static void displayMaze(MazeContainer mazeC) {
 
-		// Get the real labyrinth
-		MazeElem[][] maze = mazeC.maze;
+		// A view on the cells of the labyrinth
+		MazeElem e = mazeC.getElem(0, 0);
 
 		// Size of the labyrinth
 		int nCellsX = mazeC.nCellsX;
@@ -32,7 +36,7 @@ public class TextDisplay {
 		for (int i = 0; i < nCellsY; i++) {
 			// Draws the north edge
 			for (int j = 0; j < nCellsX; j++) {
-				MazeElem e = maze[j][i];
+				e.moveTo(j, i);
 
 				// TODO Task 1
 				System.out.print("*   ");
@@ -42,7 +46,7 @@ public class TextDisplay {
 
 			// Draws the west edge
 			for (int j = 0; j < nCellsX; j++) {
-				MazeElem e = maze[j][i];
+				e.moveTo(j, i);
 
 				// TODO Task 1
 				System.out.print("    ");
@@ -56,8 +60,44 @@ public class TextDisplay {
 		System.out.println("*");
 	}
 
+	/**
+	 * Creates a renderer that prints a streamed maze row by row, for mazes that
+	 * are too large to be kept in memory
+	 * 
+	 * @param out Where to print
+	 * @param height The number of rows of the maze, the bottom line is drawn
+	 *            after the last one
+	 * @return The renderer, to be given to a streaming generator
+	 */
+	public static MazeRowSink rowPrinter(PrintStream out, int height) {
+		return (y, passages) -> {
+			StringBuilder sb = new StringBuilder(passages.length * 8 + 4);
+
+			// Draws the north edge
+			for (byte p : passages)
+				sb.append((p & MazeContainer.OPEN_NORTH) == 0 ? "*---" : "*   ");
+			sb.append("*\n");
+
+			// Draws the west edge
+			for (byte p : passages)
+				sb.append((p & MazeContainer.OPEN_WEST) == 0 ? "|   " : "    ");
+			sb.append("|\n");
+
+			// Draws the bottom line
+			if (y == height - 1) {
+				for (int j = 0; j < passages.length; j++)
+					sb.append("*---");
+				sb.append("*\n");
+			}
+			out.print(sb);
+		};
+	}
+
 	public static void main(String args[]) {
 		MazeContainer mg = new MazeContainer(5,5);
 		TextDisplay.displayMaze(mg);
+
+		// The same kind of maze, streamed
+		new EllerGenerator().generate(5, 5, 1234, rowPrinter(System.out, 5));
 	}
 }
@@ -0,0 +1,41 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Aldous-Broder algorithm: a random walk over the whole maze, carving each
+ * time it enters a cell for the first time. Unbiased, but the walk has to
+ * cover every cell which makes it the slowest of the generators.
+ *
+ * @version 1.0
+ */
+public class AldousBroderGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+		int n = width * height;
+
+		long[] visited = new long[(n + 63) >>> 6];
+
+		int x = rnd.nextInt(width), y = rnd.nextInt(height);
+		int cell = y * width + x;
+		visited[cell >>> 6] |= 1L << cell;
+
+		for (int remaining = n - 1; remaining > 0;) {
+			int dir = rnd.nextInt(4);
+			int nx = x + Directions.DX[dir], ny = y + Directions.DY[dir];
+			if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+				continue;
+
+			int next = ny * width + nx;
+			if ((visited[next >>> 6] & (1L << next)) == 0) {
+				visited[next >>> 6] |= 1L << next;
+				Directions.carve(sink, x, y, dir);
+				remaining--;
+			}
+			x = nx;
+			y = ny;
+		}
+	}
+}
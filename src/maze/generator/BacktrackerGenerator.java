@@ -0,0 +1,14 @@
+package maze.generator;
+
+/**
+ * The recursive backtracker of {@link MazeGen}, the default algorithm
+ *
+ * @version 1.0
+ */
+public class BacktrackerGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		new MazeGen(width, height, seed, sink);
+	}
+}
@@ -0,0 +1,35 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Binary tree algorithm: every cell opens either north or west. Needs no
+ * memory at all but the maze is strongly biased (the first row and column are
+ * straight corridors).
+ *
+ * @version 1.0
+ */
+public class BinaryTreeGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (y == 0 && x == 0)
+					continue;
+
+				int dir;
+				if (y == 0)
+					dir = Directions.W;
+				else if (x == 0)
+					dir = Directions.N;
+				else
+					dir = rnd.nextBoolean() ? Directions.N : Directions.W;
+
+				Directions.carve(sink, x, y, dir);
+			}
+		}
+	}
+}
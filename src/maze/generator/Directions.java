@@ -0,0 +1,34 @@
+package maze.generator;
+
+import maze.data.MazeContainer;
+
+/**
+ * The four directions as flat tables, shared by the generators. The
+ * directions are numbered 0 to 3 in the order north, south, east, west.
+ *
+ * @version 1.0
+ */
+final class Directions {
+	static final int N = 0, S = 1, E = 2, W = 3;
+
+	static final int[] DX = { 0, 0, 1, -1 };
+	static final int[] DY = { -1, 1, 0, 0 };
+	static final int[] BIT = { MazeContainer.OPEN_NORTH, MazeContainer.OPEN_SOUTH,
+			MazeContainer.OPEN_EAST, MazeContainer.OPEN_WEST };
+	static final int[] OPPOSITE = { S, N, W, E };
+
+	private Directions() {
+	}
+
+	/**
+	 * Opens the passage between a cell and its neighbour, on both sides
+	 * @param sink Where to carve
+	 * @param x x position of the cell
+	 * @param y y position of the cell
+	 * @param dir The direction of the neighbour
+	 */
+	static void carve(MazeSink sink, int x, int y, int dir) {
+		sink.carve(x, y, BIT[dir]);
+		sink.carve(x + DX[dir], y + DY[dir], BIT[OPPOSITE[dir]]);
+	}
+}
@@ -0,0 +1,134 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Eller algorithm: the maze is built one row at a time, keeping only the sets
+ * of the cells of the current row. Adjacent cells of different sets are
+ * randomly joined, then every set goes down to the next row through at least
+ * one of its cells. The last row joins all the remaining sets.
+ *
+ * As only the current row is needed, the maze can also be streamed row by
+ * row to a {@link MazeRowSink} in O(width) memory, whatever its height.
+ *
+ * @version 1.0
+ */
+public class EllerGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		generate(width, height, seed, (y, passages) -> {
+			for (int x = 0; x < width; x++)
+				sink.carve(x, y, passages[x]);
+		});
+	}
+
+	/**
+	 * Generates the maze row by row. The maze is the same as the one given to
+	 * a {@link MazeSink} for the same seed.
+	 * @param width Width
+	 * @param height Height
+	 * @param seed The seed for the random generator
+	 * @param rows Receives the rows, from top to bottom
+	 */
+	public void generate(int width, int height, int seed, MazeRowSink rows) {
+		Random rnd = new Random(seed);
+
+		// The passages of the current row and the ones already known for the next one
+		byte[] row = new byte[width];
+		byte[] below = new byte[width];
+
+		/**
+		 * The set of each cell of the row. Set labels are always in [0, width)
+		 * so that the union-find, the counters and the flags of the sets can be
+		 * indexed by label.
+		 */
+		int[] set = new int[width];
+		int[] next = new int[width];
+		int[] parent = new int[width];
+		int[] count = new int[width];
+		boolean[] down = new boolean[width];
+
+		for (int x = 0; x < width; x++)
+			set[x] = x;
+
+		for (int y = 0; y < height; y++) {
+			boolean last = (y == height - 1);
+
+			for (int i = 0; i < width; i++) {
+				parent[i] = i;
+				count[i] = 0;
+				down[i] = false;
+			}
+
+			// Join adjacent cells, always on the last row
+			for (int x = 0; x < width - 1; x++) {
+				int a = find(parent, set[x]);
+				int b = find(parent, set[x + 1]);
+				if (a != b && (last || rnd.nextBoolean())) {
+					row[x] |= Directions.BIT[Directions.E];
+					row[x + 1] |= Directions.BIT[Directions.W];
+					parent[b] = a;
+				}
+			}
+
+			if (last) {
+				rows.row(y, row);
+				break;
+			}
+
+			for (int x = 0; x < width; x++) {
+				set[x] = find(parent, set[x]);
+				count[set[x]]++;
+			}
+
+			// Every set goes down at least once, through its last cell if needed
+			for (int x = 0; x < width; x++) {
+				int s = set[x];
+				count[s]--;
+				if ((count[s] == 0 && !down[s]) || rnd.nextBoolean()) {
+					row[x] |= Directions.BIT[Directions.S];
+					below[x] = (byte) Directions.BIT[Directions.N];
+					down[s] = true;
+					next[x] = s;
+				} else {
+					below[x] = 0;
+					next[x] = -1;
+				}
+			}
+
+			rows.row(y, row);
+
+			byte[] t = row;
+			row = below;
+			below = t;
+
+			/**
+			 * Labels of the next row: a set that went down is renamed after its
+			 * first cell, the other cells start a set of their own named after
+			 * their column. The labels cannot collide. The union-find array is
+			 * reused as the renaming table.
+			 */
+			for (int i = 0; i < width; i++)
+				parent[i] = -1;
+			for (int x = 0; x < width; x++) {
+				int s = next[x];
+				if (s < 0) {
+					set[x] = x;
+				} else {
+					if (parent[s] < 0)
+						parent[s] = x;
+					set[x] = parent[s];
+				}
+			}
+		}
+	}
+
+	private static int find(int[] parent, int a) {
+		while (parent[a] != a) {
+			parent[a] = parent[parent[a]];
+			a = parent[a];
+		}
+		return a;
+	}
+}
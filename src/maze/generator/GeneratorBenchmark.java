@@ -0,0 +1,95 @@
+package maze.generator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the throughput (cells per second) and the memory allocated by each
+ * of the {@link MazeGenerators}. The maze is written into a preallocated byte
+ * array which is not counted.
+ *
+ * Usage : {@code java maze.generator.GeneratorBenchmark [size...] [algorithm...]}
+ * where the sizes are the side of square mazes (default 1024, 4096 and 16384)
+ * and the algorithms default to all of them. Configurations that do not fit in
+ * the heap are reported as such.
+ *
+ * @version 1.0
+ */
+public class GeneratorBenchmark {
+
+	/**
+	 * A plain sink, the cheapest possible storage
+	 */
+	private static class ByteSink implements MazeSink {
+		private final byte[] cells;
+		private final int width;
+
+		ByteSink(int width, int height) {
+			this.width = width;
+			cells = new byte[width * height];
+		}
+
+		@Override
+		public void carve(int x, int y, int passages) {
+			cells[y * width + x] |= passages;
+		}
+
+		@Override
+		public int passages(int x, int y) {
+			return cells[y * width + x];
+		}
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	public static void main(String[] args) {
+		List<Integer> sizes = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.matches("\\d+"))
+				sizes.add(Integer.parseInt(arg));
+			else
+				names.add(arg);
+		}
+		if (sizes.isEmpty())
+			sizes = List.of(1024, 4096, 16384);
+		if (names.isEmpty())
+			names = List.of(MazeGenerators.NAMES);
+
+		System.out.println("    algorithm |        size |    time (s) |    Mcells/s | allocated (MB)");
+
+		for (String name : names) {
+			MazeGenerator gen = MazeGenerators.forName(name);
+
+			// Warm-up
+			for (int i = 0; i < 5; i++)
+				gen.generate(256, 256, i, new ByteSink(256, 256));
+
+			for (int size : sizes) {
+				String result;
+				try {
+					ByteSink sink = new ByteSink(size, size);
+
+					long bytes = allocatedBytes();
+					long start = System.nanoTime();
+					gen.generate(size, size, 1234, sink);
+					double seconds = (System.nanoTime() - start) / 1e9;
+					bytes = allocatedBytes() - bytes;
+
+					result = String.format("%11.3f | %11.2f | %14.1f", seconds,
+							(double) size * size / seconds / 1e6, bytes / (1024.0 * 1024.0));
+				} catch (OutOfMemoryError e) {
+					result = "out of memory";
+				}
+				System.out.println(String.format("%13s | %11s | %s", name, size + "x" + size, result));
+			}
+		}
+	}
+}
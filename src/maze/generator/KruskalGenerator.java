@@ -0,0 +1,102 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Randomized Kruskal algorithm: all the inner walls are shuffled and a wall is
+ * removed when the cells it separates are not connected yet. The connected
+ * sets are kept in a union-find over primitive arrays.
+ *
+ * @version 1.0
+ */
+public class KruskalGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+
+		/**
+		 * Walls are numbered first the vertical ones (between (x, y) and
+		 * (x + 1, y)), then the horizontal ones (between (x, y) and (x, y + 1))
+		 */
+		int nVertical = (width - 1) * height;
+		int nWalls = nVertical + width * (height - 1);
+
+		int[] walls = new int[nWalls];
+		for (int i = 0; i < nWalls; i++)
+			walls[i] = i;
+
+		for (int i = nWalls - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			int t = walls[i];
+			walls[i] = walls[j];
+			walls[j] = t;
+		}
+
+		UnionFind sets = new UnionFind(width * height);
+		int carved = 0;
+
+		for (int i = 0; i < nWalls && carved < width * height - 1; i++) {
+			int wall = walls[i];
+			int x, y, dir;
+			if (wall < nVertical) {
+				x = wall % (width - 1);
+				y = wall / (width - 1);
+				dir = Directions.E;
+			} else {
+				x = (wall - nVertical) % width;
+				y = (wall - nVertical) / width;
+				dir = Directions.S;
+			}
+
+			int a = y * width + x;
+			int b = a + (dir == Directions.E ? 1 : width);
+			if (sets.union(a, b)) {
+				Directions.carve(sink, x, y, dir);
+				carved++;
+			}
+		}
+	}
+
+	/**
+	 * Union-find with path halving and union by rank
+	 */
+	static class UnionFind {
+		private final int[] parent;
+		private final byte[] rank;
+
+		UnionFind(int n) {
+			parent = new int[n];
+			rank = new byte[n];
+			for (int i = 0; i < n; i++)
+				parent[i] = i;
+		}
+
+		int find(int a) {
+			while (parent[a] != a) {
+				parent[a] = parent[parent[a]];
+				a = parent[a];
+			}
+			return a;
+		}
+
+		/**
+		 * @return True if a and b were in different sets
+		 */
+		boolean union(int a, int b) {
+			a = find(a);
+			b = find(b);
+			if (a == b)
+				return false;
+
+			if (rank[a] < rank[b]) {
+				parent[a] = b;
+			} else {
+				parent[b] = a;
+				if (rank[a] == rank[b])
+					rank[a]++;
+			}
+			return true;
+		}
+	}
+}
@@ -1,22 +1,24 @@
 package maze.generator;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Random;
 
-import maze.data.MazeUtils;
+import maze.data.MazeContainer;
 
 /**
  * Recursive backtracking algorithm for maze construction shamelessly borrowed
  * from Ruby at http://weblog.jamisbuck.org/2010/12/27/maze-generation-recursive-backtracking
  * 
+ * The recursion is replaced by an explicit stack so that the size of the maze
+ * is not limited by the size of the thread stack.
+ * 
  * @author Pierre-André Mudry
  */
 public class MazeGen {
 
 	private final int x;
 	private final int y;
-	private final int[][] maze;
+	private final MazeSink sink;
 	private Random rnd;
 
 	/**
@@ -35,54 +37,119 @@ public class MazeGen {
 	 * @param seed The seed for the random generator, can be used as a maze ID 
 	 */
 	public MazeGen(int x, int y, int seed) {
+		this(x, y, seed, new GridSink(x, y));
+	}
+
+	/**
+	 * Generates the maze directly into a {@link MazeSink}, without keeping a
+	 * copy of it here
+	 * @param x Width
+	 * @param y Height
+	 * @param seed The seed for the random generator, can be used as a maze ID
+	 * @param sink Where the passages are carved
+	 */
+	public MazeGen(int x, int y, int seed, MazeSink sink) {
 		this.x = x;
 		this.y = y;
-		maze = new int[this.x][this.y];
+		this.sink = sink;
 		this.rnd = new Random(seed);
-		generateMaze(0, 0);			
-	}	
+		generateMaze(0, 0);
+	}
 
 	public int getContent(int x, int y) {
-		return maze[x][y];
+		return sink.passages(x, y);
 	}
 
 	public boolean wallWest(int x, int y) {
-		return (maze[x][y] & DIR.W.bit) == 0;
+		return (getContent(x, y) & DIR.W.bit) == 0;
 	}
 
 	public boolean wallNorth(int x, int y) {
-		return (maze[x][y] & DIR.N.bit) == 0;
+		return (getContent(x, y) & DIR.N.bit) == 0;
 	}
 
 	public boolean wallEast(int x, int y) {
-		return (maze[x][y] & DIR.E.bit) == 0;
+		return (getContent(x, y) & DIR.E.bit) == 0;
 	}
 
 	public boolean wallSouth(int x, int y) {
-		return (maze[x][y] & DIR.S.bit) == 0;
+		return (getContent(x, y) & DIR.S.bit) == 0;
 	}
 
+	/**
+	 * Depth-first carving from (cx, cy). Each frame of the stack is a single int
+	 * holding the shuffled {@link Directions} (2 bits each, bits 0 to 7), the next one
+	 * to try (bits 8 to 10) and the direction taken to enter the cell (bits 11
+	 * and 12), which is enough to walk back to the previous cell.
+	 * 
+	 * The random generator is used exactly as the former recursive version did,
+	 * hence a given seed always gives the same maze.
+	 */
 	private void generateMaze(int cx, int cy) {
-		DIR[] dirs = DIR.values();
-		Collections.shuffle(Arrays.asList(dirs), rnd);
-		for (DIR dir : dirs) {
-			int nx = cx + dir.dx;
-			int ny = cy + dir.dy;
-			if (between(nx, x) && between(ny, y) && (maze[nx][ny] == 0)) {
-				maze[cx][cy] |= dir.bit;
-				maze[nx][ny] |= dir.opposite.bit;
-				generateMaze(nx, ny);
+		int[] stack = new int[1024];
+		int sp = 0;
+
+		stack[sp++] = shuffledDirections();
+
+		while (sp > 0) {
+			int frame = stack[sp - 1];
+			int next = (frame >>> 8) & 7;
+
+			// All the directions have been tried, back to the previous cell
+			if (next == 4) {
+				sp--;
+				if (sp > 0) {
+					int from = frame >>> 11;
+					cx -= Directions.DX[from];
+					cy -= Directions.DY[from];
+				}
+				continue;
+			}
+
+			stack[sp - 1] = frame + (1 << 8);
+
+			int dir = (frame >>> (2 * next)) & 3;
+			int nx = cx + Directions.DX[dir];
+			int ny = cy + Directions.DY[dir];
+			if (between(nx, x) && between(ny, y) && (sink.passages(nx, ny) == 0)) {
+				Directions.carve(sink, cx, cy, dir);
+				cx = nx;
+				cy = ny;
+
+				if (sp == stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				stack[sp++] = shuffledDirections() | (dir << 11);
 			}
 		}
 	}
 
+	/**
+	 * Shuffles the four directions in place, drawing the same random numbers as
+	 * {@link java.util.Collections#shuffle(java.util.List, Random)} on a list of
+	 * four elements
+	 * 
+	 * @return The shuffled directions, packed 2 bits each
+	 */
+	private int shuffledDirections() {
+		int packed = 0 | (1 << 2) | (2 << 4) | (3 << 6);
+		for (int i = 4; i > 1; i--) {
+			int j = rnd.nextInt(i);
+			int a = (packed >>> (2 * (i - 1))) & 3;
+			int b = (packed >>> (2 * j)) & 3;
+			packed &= ~((3 << (2 * (i - 1))) | (3 << (2 * j)));
+			packed |= (b << (2 * (i - 1))) | (a << (2 * j));
+		}
+		return packed;
+	}
+
 	private static boolean between(int v, int upper) {
 		return (v >= 0) && (v < upper);
 	}
 
 	private enum DIR {
 		// Declare some directions
-		N(1, 0, -1), S(2, 0, 1), E(4, 1, 0), W(8, -1, 0);
+		N(MazeContainer.OPEN_NORTH, 0, -1), S(MazeContainer.OPEN_SOUTH, 0, 1),
+		E(MazeContainer.OPEN_EAST, 1, 0), W(MazeContainer.OPEN_WEST, -1, 0);
 
 		private final int bit; // Position of the bit
 		private final int dx; // X before or after
@@ -106,6 +173,27 @@ public class MazeGen {
 		}
 	};
 
+	/**
+	 * Keeps the maze in its own array, used when no sink is given
+	 */
+	private static class GridSink implements MazeSink {
+		private final int[][] maze;
+
+		GridSink(int x, int y) {
+			maze = new int[x][y];
+		}
+
+		@Override
+		public void carve(int x, int y, int passages) {
+			maze[x][y] |= passages;
+		}
+
+		@Override
+		public int passages(int x, int y) {
+			return maze[x][y];
+		}
+	}
+
 	public static void main(String[] args) {
 		MazeGen maze = new MazeGen(5, 5);
 	}
@@ -0,0 +1,24 @@
+package maze.generator;
+
+/**
+ * An algorithm that builds a perfect maze (exactly one path between any two
+ * cells) into a {@link MazeSink}. The sink is expected to be empty, that is
+ * all the walls are present.
+ *
+ * The implementations can be looked up by name using
+ * {@link MazeGenerators#forName(String)}.
+ *
+ * @version 1.0
+ */
+public interface MazeGenerator {
+
+	/**
+	 * Generates a maze
+	 * @param width Width
+	 * @param height Height
+	 * @param seed The seed for the random generator, the same seed always gives
+	 *            the same maze
+	 * @param sink Where the passages are carved
+	 */
+	void generate(int width, int height, int seed, MazeSink sink);
+}
@@ -0,0 +1,48 @@
+package maze.generator;
+
+/**
+ * Looks up the maze generation algorithms by name
+ *
+ * @version 1.0
+ */
+public class MazeGenerators {
+
+	/**
+	 * The names of the available algorithms, the first one is the default
+	 */
+	public static final String[] NAMES = { "backtracker", "kruskal", "prim", "wilson", "aldous-broder",
+			"binary-tree", "sidewinder", "eller", "parallel-kruskal" };
+
+	private MazeGenerators() {
+	}
+
+	/**
+	 * @param name The name of the algorithm, see {@link #NAMES}
+	 * @return The corresponding generator
+	 * @throws IllegalArgumentException if the algorithm does not exist
+	 */
+	public static MazeGenerator forName(String name) {
+		switch (name.toLowerCase()) {
+		case "backtracker":
+			return new BacktrackerGenerator();
+		case "kruskal":
+			return new KruskalGenerator();
+		case "prim":
+			return new PrimGenerator();
+		case "wilson":
+			return new WilsonGenerator();
+		case "aldous-broder":
+			return new AldousBroderGenerator();
+		case "binary-tree":
+			return new BinaryTreeGenerator();
+		case "sidewinder":
+			return new SidewinderGenerator();
+		case "eller":
+			return new EllerGenerator();
+		case "parallel-kruskal":
+			return new ParallelKruskalGenerator();
+		default:
+			throw new IllegalArgumentException("Unknown maze generator: " + name);
+		}
+	}
+}
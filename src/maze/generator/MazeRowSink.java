@@ -0,0 +1,22 @@
+package maze.generator;
+
+import maze.data.MazeContainer;
+
+/**
+ * Receives a maze one row at a time, from top to bottom, as produced by the
+ * streaming generators. This lets mazes that do not fit in memory be written
+ * to a file or displayed while they are generated.
+ *
+ * @version 1.0
+ */
+public interface MazeRowSink {
+
+	/**
+	 * Receives a complete row
+	 * @param y The index of the row
+	 * @param passages The passages of each cell of the row, using the bits of
+	 *            {@link MazeContainer}. The array is reused for the next rows
+	 *            and must not be kept.
+	 */
+	void row(int y, byte[] passages);
+}
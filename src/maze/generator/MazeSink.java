@@ -0,0 +1,31 @@
+package maze.generator;
+
+import maze.data.MazeContainer;
+
+/**
+ * Receives the passages carved by a maze generator. This lets a generator
+ * write directly into the final storage of a maze (for instance a
+ * {@link MazeContainer}) instead of building its own copy first.
+ *
+ * The passages use the bits of {@link MazeContainer} ({@code OPEN_NORTH},
+ * {@code OPEN_SOUTH}, {@code OPEN_EAST} and {@code OPEN_WEST}).
+ *
+ * @version 1.0
+ */
+public interface MazeSink {
+
+	/**
+	 * Opens some passages of a cell, the passages already open are kept
+	 * @param x x position
+	 * @param y y position
+	 * @param passages The passages to open
+	 */
+	void carve(int x, int y, int passages);
+
+	/**
+	 * @param x x position
+	 * @param y y position
+	 * @return The passages that have been carved so far for this cell
+	 */
+	int passages(int x, int y);
+}
@@ -0,0 +1,272 @@
+package maze.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Randomized Kruskal algorithm running on several cores.
+ *
+ * The inner walls are shuffled by a keyed permutation, so that the wall at any
+ * position of the shuffled list can be computed independently and nothing has
+ * to be stored or sorted. The walls are then processed by windows using
+ * deterministic reservations: every wall of the window looks up the roots of
+ * its two cells in a lock-free union-find and reserves them with its position
+ * (smallest position wins, by CAS). A wall holding one of its reservations
+ * links that root to the other one. The walls that lost both reservations are
+ * retried with the next window.
+ *
+ * This removes exactly the walls the sequential algorithm would remove with
+ * the same shuffle, hence the maze only depends on the seed and not on the
+ * number of threads.
+ *
+ * @version 1.0
+ */
+public class ParallelKruskalGenerator implements MazeGenerator {
+
+	// Number of walls processed together
+	private static final int WINDOW = 1 << 16;
+
+	// State of a wall in the window
+	private static final byte PENDING = 0, REMOVED = 1, KEPT = 2;
+
+	private final int threads;
+
+	/**
+	 * Uses all the available cores
+	 */
+	public ParallelKruskalGenerator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads The number of threads to use
+	 */
+	public ParallelKruskalGenerator(int threads) {
+		this.threads = threads;
+	}
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		/**
+		 * Walls are numbered first the vertical ones (between (x, y) and
+		 * (x + 1, y)), then the horizontal ones (between (x, y) and (x, y + 1))
+		 */
+		int n = width * height;
+		long nVertical = (long) (width - 1) * height;
+		long nWalls = nVertical + (long) width * (height - 1);
+		if (nWalls > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Maze too large: " + width + " x " + height);
+
+		Permutation shuffle = new Permutation(nWalls, seed);
+
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		AtomicIntegerArray reserved = new AtomicIntegerArray(n);
+
+		int[] position = new int[WINDOW];
+		int[] rootA = new int[WINDOW];
+		int[] rootB = new int[WINDOW];
+		byte[] state = new byte[WINDOW];
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			parallelFor(pool, n, i -> {
+				parent.set(i, i);
+				reserved.set(i, Integer.MAX_VALUE);
+			});
+
+			int next = 0, size = 0, removed = 0;
+
+			while (removed < n - 1 && (size > 0 || next < nWalls)) {
+				// Fill the window with the next walls of the shuffled list
+				while (size < WINDOW && next < nWalls)
+					position[size++] = next++;
+
+				final int windowSize = size;
+
+				/**
+				 * Reserve phase : walls between cells already connected are kept,
+				 * the other ones reserve both roots
+				 */
+				parallelFor(pool, windowSize, k -> {
+					int wall = shuffle.apply(position[k]);
+					int a = cellA(wall, width, nVertical);
+					int ra = find(parent, a);
+					int rb = find(parent, cellB(wall, a, width, nVertical));
+					if (ra == rb) {
+						state[k] = KEPT;
+					} else {
+						state[k] = PENDING;
+						rootA[k] = ra;
+						rootB[k] = rb;
+						writeMin(reserved, ra, position[k]);
+						writeMin(reserved, rb, position[k]);
+					}
+				});
+
+				/**
+				 * Commit phase : a wall holding a reservation is removed and links
+				 * the reserved root to the other one
+				 */
+				parallelFor(pool, windowSize, k -> {
+					if (state[k] != PENDING)
+						return;
+
+					int p = position[k];
+					int ra = rootA[k], rb = rootB[k];
+					if (reserved.get(rb) == p) {
+						reserved.compareAndSet(ra, p, Integer.MAX_VALUE);
+						parent.set(rb, ra);
+						state[k] = REMOVED;
+					} else if (reserved.get(ra) == p) {
+						parent.set(ra, rb);
+						state[k] = REMOVED;
+					}
+				});
+
+				// Carve the removed walls and keep the pending ones, in order
+				size = 0;
+				for (int k = 0; k < windowSize; k++) {
+					if (state[k] == REMOVED) {
+						int wall = shuffle.apply(position[k]);
+						int a = cellA(wall, width, nVertical);
+						Directions.carve(sink, a % width, a / width, wall < nVertical ? Directions.E : Directions.S);
+						removed++;
+					} else if (state[k] == PENDING) {
+						position[size++] = position[k];
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void parallelFor(ForkJoinPool pool, int n, IntConsumer body) {
+		pool.submit(() -> IntStream.range(0, n).parallel().forEach(body)).join();
+	}
+
+	/**
+	 * @return The cell on the west or north side of a wall
+	 */
+	private static int cellA(int wall, int width, long nVertical) {
+		if (wall < nVertical)
+			return wall / (width - 1) * width + wall % (width - 1);
+		else
+			return (int) (wall - nVertical);
+	}
+
+	/**
+	 * @return The cell on the east or south side of a wall
+	 */
+	private static int cellB(int wall, int a, int width, long nVertical) {
+		return wall < nVertical ? a + 1 : a + width;
+	}
+
+	/**
+	 * Lock-free find with path halving. Concurrent finds only shorten paths,
+	 * the roots do not change while no link is made.
+	 */
+	private static int find(AtomicIntegerArray parent, int a) {
+		while (true) {
+			int p = parent.get(a);
+			if (p == a)
+				return a;
+			int gp = parent.get(p);
+			if (gp != p)
+				parent.compareAndSet(a, p, gp);
+			a = gp;
+		}
+	}
+
+	private static void writeMin(AtomicIntegerArray array, int i, int value) {
+		int current;
+		while (value < (current = array.get(i)) && !array.compareAndSet(i, current, value))
+			;
+	}
+
+	/**
+	 * A pseudo-random permutation of [0, size) computed on the fly, using a
+	 * four rounds Feistel network on the next even number of bits and
+	 * cycle-walking for the values out of range
+	 */
+	private static class Permutation {
+		private final long size;
+		private final int halfBits;
+		private final long mask;
+		private final long key;
+
+		Permutation(long size, int seed) {
+			this.size = size;
+			int bits = 64 - Long.numberOfLeadingZeros(Math.max(size - 1, 1));
+			halfBits = (bits + 1) / 2;
+			mask = (1L << halfBits) - 1;
+			key = mix(seed);
+		}
+
+		int apply(int i) {
+			long v = i;
+			do {
+				long l = v >>> halfBits, r = v & mask;
+				for (int round = 0; round < 4; round++) {
+					long t = l ^ (mix(r + key + round * 0x9E3779B97F4A7C15L) & mask);
+					l = r;
+					r = t;
+				}
+				v = (l << halfBits) | r;
+			} while (v >= size);
+			return (int) v;
+		}
+
+		// SplitMix64 finalizer
+		private static long mix(long z) {
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			return z ^ (z >>> 31);
+		}
+	}
+
+	/**
+	 * Scaling report : generates the same maze with 1, 2, 4... threads up to
+	 * the number of cores
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		List<Integer> threadCounts = new ArrayList<>();
+		for (int t = 1; t < cores; t *= 2)
+			threadCounts.add(t);
+		threadCounts.add(cores);
+
+		System.out.println("threads |    time (s) | speed-up | maze hash");
+		double reference = 0;
+		for (int threads : threadCounts) {
+			byte[] cells = new byte[size * size];
+			MazeSink sink = new MazeSink() {
+				@Override
+				public void carve(int x, int y, int passages) {
+					cells[y * size + x] |= passages;
+				}
+
+				@Override
+				public int passages(int x, int y) {
+					return cells[y * size + x];
+				}
+			};
+
+			long start = System.nanoTime();
+			new ParallelKruskalGenerator(threads).generate(size, size, 1234, sink);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			if (reference == 0)
+				reference = seconds;
+
+			System.out.println(String.format("%7d | %11.3f | %8.2f | %08x", threads, seconds, reference / seconds,
+					Arrays.hashCode(cells)));
+		}
+	}
+}
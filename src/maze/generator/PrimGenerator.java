@@ -0,0 +1,79 @@
+package maze.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Randomized Prim algorithm: the maze grows from a random cell by connecting,
+ * at each step, a random cell of the frontier to a random neighbour already
+ * in the maze.
+ *
+ * @version 1.0
+ */
+public class PrimGenerator implements MazeGenerator {
+
+	// State of the cells
+	private static final byte OUT = 0, FRONTIER = 1, IN = 2;
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+
+		byte[] state = new byte[width * height];
+		Frontier frontier = new Frontier();
+		int[] candidates = new int[4];
+
+		int cell = rnd.nextInt(width * height);
+
+		while (true) {
+			int x = cell % width, y = cell / width;
+			state[cell] = IN;
+
+			// The neighbours that are not reached yet join the frontier
+			for (int dir = 0; dir < 4; dir++) {
+				int nx = x + Directions.DX[dir], ny = y + Directions.DY[dir];
+				if (nx >= 0 && nx < width && ny >= 0 && ny < height && state[ny * width + nx] == OUT) {
+					state[ny * width + nx] = FRONTIER;
+					frontier.add(ny * width + nx);
+				}
+			}
+
+			if (frontier.size == 0)
+				break;
+
+			// Take a random cell out of the frontier...
+			cell = frontier.removeAt(rnd.nextInt(frontier.size));
+			x = cell % width;
+			y = cell / width;
+
+			// ... and connect it to one of its neighbours already in the maze
+			int n = 0;
+			for (int dir = 0; dir < 4; dir++) {
+				int nx = x + Directions.DX[dir], ny = y + Directions.DY[dir];
+				if (nx >= 0 && nx < width && ny >= 0 && ny < height && state[ny * width + nx] == IN)
+					candidates[n++] = dir;
+			}
+			Directions.carve(sink, x, y, candidates[rnd.nextInt(n)]);
+		}
+	}
+
+	/**
+	 * Unordered list of cells, removal swaps with the last one
+	 */
+	private static class Frontier {
+		int[] cells = new int[64];
+		int size;
+
+		void add(int cell) {
+			if (size == cells.length)
+				cells = Arrays.copyOf(cells, size * 2);
+			cells[size++] = cell;
+		}
+
+		int removeAt(int k) {
+			int cell = cells[k];
+			cells[k] = cells[--size];
+			return cell;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Sidewinder algorithm: each row is cut into runs of cells connected east,
+ * every run is then connected north through one of its cells. The first row
+ * is a single corridor.
+ *
+ * @version 1.0
+ */
+public class SidewinderGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+
+		for (int x = 0; x < width - 1; x++)
+			Directions.carve(sink, x, 0, Directions.E);
+
+		for (int y = 1; y < height; y++) {
+			int runStart = 0;
+			for (int x = 0; x < width; x++) {
+				if (x == width - 1 || rnd.nextBoolean()) {
+					// Close the run and connect it north
+					int cx = runStart + rnd.nextInt(x - runStart + 1);
+					Directions.carve(sink, cx, y, Directions.N);
+					runStart = x + 1;
+				} else {
+					Directions.carve(sink, x, y, Directions.E);
+				}
+			}
+		}
+	}
+}
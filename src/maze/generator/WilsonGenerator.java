@@ -0,0 +1,66 @@
+package maze.generator;
+
+import java.util.Random;
+
+/**
+ * Wilson algorithm: loop-erased random walks from every cell not yet in the
+ * maze until they hit the maze. Gives an unbiased sample of all the possible
+ * mazes, but the first walks can be long on big mazes.
+ *
+ * @version 1.0
+ */
+public class WilsonGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(int width, int height, int seed, MazeSink sink) {
+		Random rnd = new Random(seed);
+		int n = width * height;
+
+		long[] inMaze = new long[(n + 63) >>> 6];
+
+		// Direction taken when the walk last left each cell
+		byte[] walk = new byte[n];
+
+		int root = rnd.nextInt(n);
+		inMaze[root >>> 6] |= 1L << root;
+
+		for (int start = 0; start < n; start++) {
+			if ((inMaze[start >>> 6] & (1L << start)) != 0)
+				continue;
+
+			/**
+			 * Random walk until the maze is hit, only the last exit direction of
+			 * each cell is kept which erases the loops
+			 */
+			int x = start % width, y = start / width;
+			int cell = start;
+			while ((inMaze[cell >>> 6] & (1L << cell)) == 0) {
+				int dir;
+				int nx, ny;
+				do {
+					dir = rnd.nextInt(4);
+					nx = x + Directions.DX[dir];
+					ny = y + Directions.DY[dir];
+				} while (nx < 0 || nx >= width || ny < 0 || ny >= height);
+
+				walk[cell] = (byte) dir;
+				x = nx;
+				y = ny;
+				cell = y * width + x;
+			}
+
+			// Carve the loop-erased path into the maze
+			x = start % width;
+			y = start / width;
+			cell = start;
+			while ((inMaze[cell >>> 6] & (1L << cell)) == 0) {
+				inMaze[cell >>> 6] |= 1L << cell;
+				int dir = walk[cell];
+				Directions.carve(sink, x, y, dir);
+				x += Directions.DX[dir];
+				y += Directions.DY[dir];
+				cell = y * width + x;
+			}
+		}
+	}
+}
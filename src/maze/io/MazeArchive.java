@@ -0,0 +1,163 @@
+package maze.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import maze.data.MazeContainer;
+
+/**
+ * Many mazes in a single file. The file starts with a header (magic number,
+ * version, number of mazes and a reserved word, as big-endian ints) followed by
+ * an index of count + 1 longs giving the position of each maze in the file and
+ * the end of the last one. The mazes are stored in the format of
+ * {@link MazeFile}.
+ *
+ * Any maze of an archive is loaded in constant time by mapping its region of
+ * the file.
+ *
+ * @version 1.1
+ */
+public class MazeArchive implements Closeable {
+	public static final int MAGIC = 0x4D5A4152; // "MZAR"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+
+	private final FileChannel ch;
+	private final MappedByteBuffer index;
+	private final int count;
+
+	private MazeArchive(FileChannel ch) throws IOException {
+		this.ch = ch;
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && ch.read(header, header.position()) >= 0)
+			;
+		if (header.hasRemaining() || header.getInt(0) != MAGIC)
+			throw new IOException("Not a maze archive");
+		if (header.getInt(4) != VERSION)
+			throw new IOException("Unsupported maze archive version " + header.getInt(4));
+
+		count = header.getInt(8);
+		long size = ch.size(), indexEnd = HEADER_SIZE + 8L * ((long) count + 1);
+		if (count < 0 || indexEnd > size)
+			throw new IOException("Truncated or corrupted maze archive");
+		index = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexEnd - HEADER_SIZE);
+
+		// The mazes follow the index, one after the other, each one within the file and small enough to be mapped
+		long previous = indexEnd;
+		for (int i = 0; i <= count; i++) {
+			long offset = index.getLong(8 * i);
+			if (offset < previous || offset > size || (i > 0 && offset - previous > Integer.MAX_VALUE))
+				throw new IOException("Truncated or corrupted maze archive");
+			previous = offset;
+		}
+	}
+
+	/**
+	 * Opens an archive for reading
+	 * @param path The archive
+	 * @return The archive, to be closed when done. The mazes already loaded
+	 *         stay usable once it is closed.
+	 */
+	public static MazeArchive open(Path path) throws IOException {
+		FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new MazeArchive(ch);
+		} catch (IOException e) {
+			ch.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of mazes in the archive
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Loads a maze by mapping it in memory, see {@link MazeFile#load(Path)}
+	 * @param i The number of the maze in the archive
+	 * @return The maze
+	 */
+	public MazeContainer get(int i) throws IOException {
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("Maze " + i + " of " + count);
+
+		long start = index.getLong(8 * i);
+		long end = index.getLong(8 * (i + 1));
+		return MazeFile.wrap(ch.map(FileChannel.MapMode.READ_ONLY, start, end - start), 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		ch.close();
+	}
+
+	/**
+	 * Creates an archive
+	 * @param path The archive, replaced if it exists
+	 * @param count The number of mazes that will be added
+	 * @return A writer to add the mazes, to be closed at the end
+	 */
+	public static Writer create(Path path, int count) throws IOException {
+		return new Writer(path, count);
+	}
+
+	/**
+	 * Adds the mazes one after the other, the index is written at the end
+	 */
+	public static class Writer implements Closeable {
+		private final FileChannel ch;
+		private final long[] offsets;
+		private int added;
+		private long position;
+
+		private Writer(Path path, int count) throws IOException {
+			ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			offsets = new long[count + 1];
+			position = HEADER_SIZE + 8L * (count + 1);
+		}
+
+		/**
+		 * Appends a maze to the archive
+		 */
+		public void add(MazeContainer mc) throws IOException {
+			if (added == offsets.length - 1)
+				throw new IllegalStateException("Archive already full");
+
+			offsets[added++] = position;
+			position += MazeFile.write(mc, ch, position);
+		}
+
+		/**
+		 * Writes the header and the index
+		 * @throws IllegalStateException if less mazes than announced were added
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				if (added != offsets.length - 1)
+					throw new IllegalStateException(added + " mazes added, " + (offsets.length - 1) + " expected");
+				offsets[added] = position;
+
+				ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 8 * offsets.length);
+				buf.putInt(MAGIC).putInt(VERSION).putInt(added).putInt(0);
+				for (long offset : offsets)
+					buf.putLong(offset);
+				buf.flip();
+				while (buf.hasRemaining())
+					ch.write(buf, buf.position());
+			} finally {
+				ch.close();
+			}
+		}
+	}
+}
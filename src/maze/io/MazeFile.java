@@ -0,0 +1,221 @@
+package maze.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import maze.data.MazeContainer;
+import maze.data.NibbleCellStore;
+
+/**
+ * Binary maze files. A file is a fixed size header followed by the cells at 4
+ * bits per cell (see {@link NibbleCellStore} for the layout).
+ *
+ * The header holds, as big-endian ints : the magic number, the version, the
+ * width, the height, the maze ID, the start position (x, y), the exit position
+ * (x, y) and a reserved word. A missing position is stored as -1.
+ *
+ * Loading maps the file in memory and uses it as the storage of the maze,
+ * nothing is read or copied until the cells are accessed.
+ *
+ * @version 1.1
+ */
+public class MazeFile {
+	public static final int MAGIC = 0x4D415A45; // "MAZE"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 40;
+
+	private MazeFile() {
+	}
+
+	/**
+	 * @return The size in bytes of the file for a maze
+	 */
+	public static long fileSize(int width, int height) {
+		return HEADER_SIZE + ((long) width * height + 1) / 2;
+	}
+
+	/**
+	 * Saves a maze
+	 * @param mc The maze to save
+	 * @param path The file, replaced if it exists
+	 */
+	public static void write(MazeContainer mc, Path path) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(mc, ch, 0);
+		}
+	}
+
+	/**
+	 * Writes a maze at a given position of a channel
+	 * @param mc The maze to write
+	 * @param ch The channel
+	 * @param position Where to write in the channel
+	 * @return The number of bytes written
+	 */
+	public static long write(MazeContainer mc, FileChannel ch, long position) throws IOException {
+		int w = mc.nCellsX, h = mc.nCellsY;
+		int startX = -1, startY = -1, exitX = -1, exitY = -1;
+
+		ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+		long pos = position + HEADER_SIZE;
+		int pending = -1;
+
+		// Body, the positions are found on the way
+		for (int y = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				int cell = mc.getCell(x, y);
+				if ((cell & MazeContainer.P1) != 0) {
+					startX = x;
+					startY = y;
+				}
+				if ((cell & MazeContainer.EXIT) != 0) {
+					exitX = x;
+					exitY = y;
+				}
+
+				int nibble = cell & MazeContainer.OPEN_MASK;
+				if (pending < 0) {
+					pending = nibble;
+				} else {
+					buf.put((byte) (pending | (nibble << 4)));
+					pending = -1;
+					if (!buf.hasRemaining())
+						pos += flush(buf, ch, pos);
+				}
+			}
+		}
+		if (pending >= 0)
+			buf.put((byte) pending);
+		pos += flush(buf, ch, pos);
+
+		// Header
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(w).putInt(h).putInt(mc.mazeID);
+		header.putInt(startX).putInt(startY).putInt(exitX).putInt(exitY).putInt(0);
+		flush(header, ch, position);
+
+		return pos - position;
+	}
+
+	private static int flush(ByteBuffer buf, FileChannel ch, long position) throws IOException {
+		buf.flip();
+		int n = 0;
+		while (buf.hasRemaining())
+			n += ch.write(buf, position + n);
+		buf.clear();
+		return n;
+	}
+
+	/**
+	 * Loads a maze by mapping its file in memory. The walls cannot be changed
+	 * as the mapping is read-only.
+	 * @param path The file
+	 * @return The maze
+	 */
+	public static MazeContainer load(Path path) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			return wrap(buf, 0);
+		}
+	}
+
+	/**
+	 * Uses a maze stored in a buffer, without copying it
+	 * @param buf The buffer
+	 * @param position The position of the header in the buffer
+	 * @return The maze
+	 * @throws IOException if the header is not valid
+	 */
+	public static MazeContainer wrap(ByteBuffer buf, int position) throws IOException {
+		if (buf.limit() - position < HEADER_SIZE || buf.getInt(position) != MAGIC)
+			throw new IOException("Not a maze file");
+		if (buf.getInt(position + 4) != VERSION)
+			throw new IOException("Unsupported maze file version " + buf.getInt(position + 4));
+
+		int w = buf.getInt(position + 8);
+		int h = buf.getInt(position + 12);
+		int mazeID = buf.getInt(position + 16);
+		if (w <= 0 || h <= 0 || (long) w * h > Integer.MAX_VALUE
+				|| buf.limit() - position < fileSize(w, h))
+			throw new IOException("Truncated or corrupted maze file");
+
+		MazeContainer mc = new MazeContainer(w, h, mazeID,
+				new NibbleCellStore(buf, position + HEADER_SIZE, w));
+
+		int startX = buf.getInt(position + 20), startY = buf.getInt(position + 24);
+		int exitX = buf.getInt(position + 28), exitY = buf.getInt(position + 32);
+		if (!isPosition(startX, startY, w, h) || !isPosition(exitX, exitY, w, h))
+			throw new IOException("Truncated or corrupted maze file");
+
+		if (startX >= 0)
+			mc.getElem(startX, startY).setP1Present(true);
+		if (exitX >= 0)
+			mc.getElem(exitX, exitY).setExit(true);
+
+		return mc;
+	}
+
+	/**
+	 * @return True if a position of the header is in the maze, or is -1, -1
+	 *         for none
+	 */
+	private static boolean isPosition(int x, int y, int w, int h) {
+		if (x == -1 && y == -1)
+			return true;
+		return x >= 0 && x < w && y >= 0 && y < h;
+	}
+
+	/**
+	 * Creates a file for a maze that is streamed row by row, see
+	 * {@link maze.generator.EllerGenerator}. The start and the exit are the
+	 * fixed positions of {@link MazeContainer}.
+	 * @param path The file, replaced if it exists
+	 * @param width Width
+	 * @param height Height
+	 * @param mazeID The unique ID of the maze
+	 * @return The writer receiving the rows, to be closed at the end
+	 */
+	public static MazeRowWriter rowWriter(Path path, int width, int height, int mazeID) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(mazeID);
+		header.putInt(0).putInt(0).putInt((width - 1) / 2).putInt(height - 1).putInt(0);
+		out.write(header.array());
+
+		return new MazeRowWriter(out);
+	}
+
+	public static void main(String args[]) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+		Path path = Files.createTempFile("maze", ".bin");
+
+		long start = System.nanoTime();
+		MazeContainer mc = new MazeContainer(size, size);
+		System.out.println(String.format("Generated %dx%d in %.3f s", size, size, (System.nanoTime() - start) / 1e9));
+
+		start = System.nanoTime();
+		write(mc, path);
+		System.out.println(String.format("Written %d bytes in %.3f s", Files.size(path), (System.nanoTime() - start) / 1e9));
+
+		start = System.nanoTime();
+		MazeContainer loaded = load(path);
+		System.out.println(String.format("Loaded in %.3f s", (System.nanoTime() - start) / 1e9));
+
+		start = System.nanoTime();
+		for (int y = 0; y < size; y++)
+			for (int x = 0; x < size; x++)
+				if (loaded.getCell(x, y) != mc.getCell(x, y))
+					throw new IllegalStateException("Difference at " + x + ", " + y);
+		System.out.println(String.format("Compared in %.3f s", (System.nanoTime() - start) / 1e9));
+
+		Files.delete(path);
+	}
+}
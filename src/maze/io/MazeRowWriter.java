@@ -0,0 +1,58 @@
+package maze.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import maze.data.MazeContainer;
+import maze.generator.MazeRowSink;
+
+/**
+ * Writes the rows of a streamed maze to an {@link OutputStream}, 4 bits per
+ * cell. The cells are written row-major, two cells per byte with the first
+ * one in the low nibble. A nibble holds the open passages of the cell (bits
+ * of {@link MazeContainer}).
+ *
+ * @version 1.0
+ */
+public class MazeRowWriter implements MazeRowSink, Closeable {
+	private final OutputStream out;
+
+	// A pending low nibble, or -1 if none
+	private int pending = -1;
+
+	public MazeRowWriter(OutputStream out) {
+		this.out = new BufferedOutputStream(out, 1 << 16);
+	}
+
+	@Override
+	public void row(int y, byte[] passages) {
+		try {
+			for (byte p : passages) {
+				int nibble = p & MazeContainer.OPEN_MASK;
+				if (pending < 0) {
+					pending = nibble;
+				} else {
+					out.write(pending | (nibble << 4));
+					pending = -1;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the last pending cell, if any, and closes the stream
+	 */
+	@Override
+	public void close() throws IOException {
+		if (pending >= 0) {
+			out.write(pending);
+			pending = -1;
+		}
+		out.close();
+	}
+}
@@ -1,44 +1,202 @@
 package maze.solvers;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
 import maze.data.MazeContainer;
-import maze.data.MazeElem;
 import maze.display.TextDisplay;
 
 /**
  * A-Star (Lee) algorithm for maze solving
  *
+ * The wave is propagated from a queue holding the cells reached at the last
+ * step, so that each step only looks at these cells instead of the whole maze.
+ *
+ * A real A* search is available as well (see {@link Mode}), it is guided
+ * towards the exit by the Manhattan distance and usually looks at far fewer
+ * cells than the wave, or by the distances to landmarks (see
+ * {@link LandmarkGraph}). So is a bidirectional wave, started from both ends,
+ * and a Lee wave expanded on several cores.
+ *
+ * The searches do not read the cells but the {@link MazeGraph} of the maze,
+ * built once for all the searches until the maze changes. Any other graph can
+ * be solved the same way, see {@link #solve(MazeGraph, int, int, Mode, SolverContext)}.
+ *
+ * All the searches work in a {@link SolverContext}, which can be kept to
+ * solve again without allocating anything. The result is best taken as a
+ * {@link Path}, see {@link #findPath(MazeContainer, int, int, Mode)}, it is
+ * only turned into an array of the size of the maze when
+ * {@link #solve(MazeContainer, int, int)} asks for it.
+ *
  * @author Pierre-André Mudry, Romain Cherix
- * @version 1.3
+ * @version 2.0
  *
  */
 public class AStar {
+
+	/**
+	 * The search algorithms
+	 */
+	public enum Mode {
+		// Lee wave propagation, computes the distances around the start point
+		LEE,
+		// A* with the lower bound of the graph, the Manhattan distance on a maze
+		ASTAR,
+		// Two Lee waves, from the start and from the exit, until they meet
+		BIDIRECTIONAL,
+		// Lee wave propagation, each step shared between several threads
+		PARALLEL_LEE,
+		// A* with the distances to a few landmarks, see LandmarkGraph
+		ALT
+	}
+
+	// Cells of the wave front given to a task by the parallel wave
+	static final int CHUNK = 1024;
+
+	// The pools of the parallel wave for the other numbers of threads than the common pool, the least
+	// recently used one being dropped beyond MAX_POOLS : its idle threads then end by themselves
+	private static final int MAX_POOLS = 4;
+	private static final Map<Integer, ForkJoinPool> POOLS = new LinkedHashMap<Integer, ForkJoinPool>(8, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, ForkJoinPool> eldest) {
+			return size() > MAX_POOLS;
+		}
+	};
 	
-	private MazeElem[][] maze;		
+	private MazeContainer maze;		
 	private int width, height;	
 	private int[][] solution; 
+
+	// The passages of the maze, as seen by the searches
+	private MazeGraph graph;
+
+	// The labels, the wave front and the path of the searches
+	private final SolverContext context;
+
+	// The index of the exit
+	private int goal;
+
+	// The number of cells expanded by the last search
+	long expanded;
 	
+	// The number of threads of the parallel wave
+	private final int threads;
+
 	// Debug information
 	public final boolean VERBOSE = true;
 	
-	private AStar(MazeContainer mazeContainer) {
-		maze = mazeContainer.maze;
+	AStar(MazeContainer mazeContainer) {
+		this(mazeContainer, new SolverContext());
+	}
+
+	AStar(MazeContainer mazeContainer, SolverContext context) {
+		this(mazeContainer, context, Runtime.getRuntime().availableProcessors());
+	}
+
+	AStar(MazeContainer mazeContainer, int threads) {
+		this(mazeContainer, new SolverContext(), threads);
+	}
+
+	/**
+	 * @param mazeContainer The maze to solve
+	 * @param context Where the searches work
+	 * @param threads The number of threads used by {@link Mode#PARALLEL_LEE}
+	 */
+	AStar(MazeContainer mazeContainer, SolverContext context, int threads) {
+		maze = mazeContainer;
 		width = mazeContainer.nCellsX;
 		height = mazeContainer.nCellsY;
+		this.context = context;
+		this.threads = threads;
+	}
+
+	/**
+	 * @param graph The graph to solve, the cells are its nodes
+	 * @param context Where the searches work
+	 * @param threads The number of threads used by {@link Mode#PARALLEL_LEE}
+	 */
+	private AStar(MazeGraph graph, SolverContext context, int threads) {
+		this.graph = graph;
+		this.context = context;
+		this.threads = threads;
 	}
 	
 	/**
-	 * Solves the maze 
+	 * Solves the maze with the given algorithm
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @param mode The algorithm to use
+	 */
+	void solve(int x, int y, Mode mode) {
+		find(x, y, mode);
+
+		if (VERBOSE)
+			System.out.println("\n[A* solver] Took "
+					+ context.pathLength()
+					+ " steps for the solution\n");
+	}
+
+	/**
+	 * Solves the maze with the given algorithm, without printing anything,
+	 * for the benchmarks and the entry points that do not print
 	 * @param x The x-coordinate of the start point
 	 * @param y The y-coordinate of the start point
+	 * @param mode The algorithm to use
+	 */
+	void find(int x, int y, Mode mode) {
+		goal = maze.getExit();
+		if (goal < 0)
+			throw new IllegalStateException("The maze has no exit");
+		graph = mode == Mode.ALT ? LandmarkGraph.of(maze) : MazeGraph.of(maze);
+		solution = null;
+
+		search(maze.index(x, y), mode);
+	}
+
+	/**
+	 * Searches the graph from a node to the goal, the path is left in the
+	 * context
+	 * @param start The first node of the path
+	 * @param mode The algorithm to use
+	 */
+	private void search(int start, Mode mode) {
+		if (graph.isWeighted() && mode != Mode.ASTAR && mode != Mode.ALT)
+			throw new IllegalArgumentException("Only A* can solve a weighted graph");
+		context.begin(graph.nodes);
+
+		switch (mode) {
+		case LEE:
+			solve(start);
+			break;
+		case ASTAR:
+		case ALT:
+			solveAStar(start);
+			break;
+		case BIDIRECTIONAL:
+			solveBidirectional(start);
+			break;
+		case PARALLEL_LEE:
+			solveParallel(start);
+			break;
+		}
+		expanded = context.expanded;
+	}
+
+	/**
+	 * Solves the maze 
+	 * @param start The start point
 	 */
-	private void solve(int x, int y) {
+	private void solve(int start) {
 		/**
-		 * The solution at the beginning is an array full of zeroes
+		 * At the beginning no cell of the context is labelled
 		 */
-		solution = new int[width][height];
 
 		// We indicate the starting position
-		solution[x][y] = 1;
+		context.setLabel(start, 1);
+		context.push(start);
 
 		// This is the step counter
 		int m = 1;
@@ -46,29 +204,20 @@ public class AStar {
 		/**
 		 * Do the expansion until we have reached the exit.
 		 */
-		while (expansion(m) == false) {
-			m++;
+		if (start == goal) {
+			m = 0;
+		} else {
+			while (expansion(m) == false) {
+				m++;
+			}
 		}
 
 		/**
-		 * m contains the total number of steps to find the solution
-		 */
-		if (VERBOSE)
-			System.out.println("\n[A* solver] Took "
-					+ m
-					+ " steps for the solution\n");
-
-
-		/**
-		 * As the forward propagation is over, we can now do the back-prop
+		 * m contains the total number of steps to find the solution. As the
+		 * forward propagation is over, we can now do the back-prop
 		 * phase.
 		 */
-
-		// TODO
-		// When you are confident your algorithm is working, you
-		// can uncomment following line in order to have the backtrace done for you
-
-		// backtrace(m);
+		backtrace(m);
 	}
 
 	/**
@@ -76,26 +225,336 @@ public class AStar {
 	 * 
 	 * @param m The current step of the algorithm
 	 * @return A boolean value that indicates if the wave has hit exit
+	 * @throws IllegalStateException if the exit cannot be reached
 	 */
 	private boolean expansion(int m) {
-		
-		// TODO Implement your algorithm here
-		return true;
+		if (context.size == 0)
+			throw new IllegalStateException("The exit cannot be reached");
+
+		boolean found = false;
+		int[] offsets = graph.offsets, neighbors = graph.neighbors;
+
+		// Only the cells labelled m are in the queue
+		for (int count = context.size; count > 0; count--) {
+			int cell = context.poll();
+			context.expanded++;
+
+			for (int e = offsets[cell]; e < offsets[cell + 1]; e++)
+				found |= label(neighbors[e], m + 1);
+		}
+		return found;
+	}
+
+	/**
+	 * Labels a cell with its distance if it has not been reached yet, and adds
+	 * it to the wave front
+	 * 
+	 * @return True if the cell is the exit
+	 */
+	private boolean label(int cell, int m) {
+		if (context.labelled(cell))
+			return false;
+
+		context.setLabel(cell, m);
+		context.push(cell);
+
+		return cell == goal;
+	}
+
+	/**
+	 * Lee wave where each step is cut in chunks of the wave front, expanded by
+	 * the threads of a pool. A cell is stamped with the epoch of the search by
+	 * a compare-and-set, so it joins the next front only once whichever thread
+	 * reaches it, and the thread that stamped it sets its label. As every step
+	 * is completed before the next one starts, the labels are exactly the ones
+	 * of the sequential wave, and so is the back-traced path.
+	 *
+	 * The stamps, the fronts and the pools are kept from one search to the
+	 * next, only the tasks of a step are allocated.
+	 * 
+	 * @param start The start point
+	 */
+	private void solveParallel(int start) {
+		int epoch = context.epoch();
+		AtomicIntegerArray reached = context.reached();
+		reached.set(start, epoch);
+		context.label[start] = 1;
+
+		int[] front = context.front;
+		front[0] = start;
+		int size = 1, m = 1;
+
+		ForkJoinPool pool = pool(threads);
+		while (reached.get(goal) != epoch) {
+			if (size == 0)
+				throw new IllegalStateException("The exit cannot be reached");
+
+			context.expanded += size;
+			int count = size, step = m, chunks = (size + CHUNK - 1) / CHUNK;
+			IntList[] parts = context.parts(chunks);
+			int[] current = front;
+
+			if (chunks == 1)
+				expandChunk(reached, epoch, current, count, 0, step, parts[0]);
+			else
+				pool.submit(() -> IntStream.range(0, chunks).parallel()
+						.forEach(c -> expandChunk(reached, epoch, current, count, c, step, parts[c]))).join();
+
+			// The next front, chunk after chunk, in the other array
+			size = 0;
+			for (int c = 0; c < chunks; c++)
+				size += parts[c].size;
+			int[] next = context.following;
+			if (next.length < size)
+				next = new int[Math.max(size, 2 * next.length)];
+			size = 0;
+			for (int c = 0; c < chunks; c++) {
+				System.arraycopy(parts[c].data, 0, next, size, parts[c].size);
+				size += parts[c].size;
+			}
+			context.following = current;
+			context.front = front = next;
+			m++;
+		}
+
+		backtrace(context.label[goal] - 1, reached);
+	}
+
+	/**
+	 * Expands one chunk of the wave front
+	 * 
+	 * @param epoch The stamp of the search
+	 * @param size The number of cells of the front
+	 * @param chunk The number of the chunk
+	 * @param m The current step, the new cells are labelled m + 1
+	 * @param out Receives the cells stamped by this chunk
+	 */
+	private void expandChunk(AtomicIntegerArray reached, int epoch, int[] front, int size, int chunk, int m,
+			IntList out) {
+		int from = chunk * CHUNK, to = Math.min(from + CHUNK, size);
+		int[] offsets = graph.offsets, neighbors = graph.neighbors, label = context.label;
+		out.clear();
+
+		for (int k = from; k < to; k++) {
+			int cell = front[k];
+			for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+				int next = neighbors[e];
+				int old = reached.get(next);
+				if (old != epoch && reached.compareAndSet(next, old, epoch)) {
+					label[next] = m + 1;
+					out.add(next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The pool of the parallel wave with a number of threads : the
+	 *         common pool if it has as many, otherwise one kept for all the
+	 *         solvers
+	 */
+	private static ForkJoinPool pool(int threads) {
+		if (threads == ForkJoinPool.getCommonPoolParallelism())
+			return ForkJoinPool.commonPool();
+		synchronized (POOLS) {
+			return POOLS.computeIfAbsent(threads, ForkJoinPool::new);
+		}
+	}
+
+	/**
+	 * A* search towards the exit. The open cells are kept in a binary heap
+	 * ordered by f = g + h (ties broken in favour of the deepest cell), g being
+	 * the label of the cell. As the lower bound of the graph is consistent, a
+	 * closed cell never has to be opened again. The edges may have a cost.
+	 * 
+	 * @param start The start point
+	 */
+	private void solveAStar(int start) {
+		int[] g = context.label;
+		int[] offsets = graph.offsets, neighbors = graph.neighbors, weights = graph.weights;
+		IndexedMinHeap open = context.heap();
+
+		context.setLabel(start, 0);
+		open.put(start, key(0, start));
+
+		while (!open.isEmpty()) {
+			int cell = open.poll();
+			context.close(cell);
+			context.expanded++;
+
+			if (cell == goal)
+				break;
+
+			for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+				int next = neighbors[e];
+				if (context.isClosed(next))
+					continue;
+
+				int cost = g[cell] + (weights == null ? 1 : weights[e]);
+				if (!open.contains(next) || cost < g[next]) {
+					context.setLabel(next, cost);
+					context.parent[next] = cell;
+					open.put(next, key(cost, next));
+				}
+			}
+		}
+
+		if (!context.isClosed(goal))
+			throw new IllegalStateException("The exit cannot be reached");
+
+		// Follow the parents back from the exit, the cost is not the number of steps on a weighted graph
+		int steps = 0;
+		for (int cell = goal; cell != start; cell = context.parent[cell])
+			steps++;
+		context.setPathLength(steps);
+		traceBack(context, goal, steps);
+	}
+
+	/**
+	 * Bidirectional search from the start to the exit, see
+	 * {@link #bidirectional(MazeGraph, int, int, SolverContext)}
+	 * 
+	 * @param start The start point
+	 */
+	private void solveBidirectional(int start) {
+		if (bidirectional(graph, start, goal, context) < 0)
+			throw new IllegalStateException("The exit cannot be reached");
+	}
+
+	/**
+	 * Bidirectional search : a wave from the start and a wave from the goal,
+	 * the smallest one being expanded one step at a time. Both waves label the
+	 * same cells, with positive distances (+ 1) from the start and negative
+	 * ones from the goal, so they meet when a wave reaches a cell labelled by
+	 * the other one. The step where they meet is completed to keep the
+	 * shortest of the meeting points.
+	 * 
+	 * @param graph The graph of the maze, whose edges all cost 1
+	 * @param start The first cell of the path, see {@link MazeContainer#index(int, int)}
+	 * @param goal The last cell of the path
+	 * @param context Where the search works, the path is left there
+	 * @return The number of steps of the path, -1 if the goal cannot be reached
+	 */
+	static int bidirectional(MazeGraph graph, int start, int goal, SolverContext context) {
+		context.begin(graph.nodes);
+
+		if (start == goal) {
+			context.setPathLength(0);
+			context.setPathCell(0, start);
+			return 0;
+		}
+
+		int[] offsets = graph.offsets, neighbors = graph.neighbors;
+		IntList[] current = context.current, next = context.next;
+		context.setLabel(start, 1);
+		context.setLabel(goal, -1);
+		current[0].clear();
+		current[1].clear();
+		current[0].add(start);
+		current[1].add(goal);
+
+		// The best meeting point, as a cell of each wave
+		int best = Integer.MAX_VALUE;
+		int meetStart = start, meetGoal = goal;
+
+		while (best == Integer.MAX_VALUE) {
+			if (current[0].size == 0 || current[1].size == 0)
+				return -1;
+
+			int side = current[0].size <= current[1].size ? 0 : 1;
+			int sign = side == 0 ? 1 : -1;
+			IntList wave = current[side], grown = next[side];
+			grown.clear();
+
+			for (int k = 0; k < wave.size; k++) {
+				int cell = wave.get(k);
+				int d = Math.abs(context.label[cell]);
+				context.expanded++;
+
+				for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+					int nb = neighbors[e];
+					int s = context.label(nb);
+					if (s == 0) {
+						context.setLabel(nb, sign * (d + 1));
+						context.parent[nb] = cell;
+						grown.add(nb);
+					} else if ((s > 0) != (sign > 0) && d + Math.abs(s) - 1 < best) {
+						// The waves meet
+						best = d + Math.abs(s) - 1;
+						meetStart = side == 0 ? cell : nb;
+						meetGoal = side == 0 ? nb : cell;
+					}
+				}
+			}
+
+			current[side] = grown;
+			next[side] = wave;
+		}
+
+		// Splice both halves, each one following its parents
+		context.setPathLength(best);
+		traceBack(context, meetStart, context.label[meetStart] - 1);
+		traceForward(context, meetGoal, best + context.label[meetGoal] + 1);
+		return best;
+	}
+
+	/**
+	 * Writes the path from the root of a search tree (at position 0) to a
+	 * cell, following the parents back from the cell
+	 * 
+	 * @param i The position of the cell in the path
+	 */
+	static void traceBack(SolverContext context, int cell, int i) {
+		for (; i >= 0; i--) {
+			context.setPathCell(i, cell);
+			if (i > 0)
+				cell = context.parent[cell];
+		}
 	}
 
 	/**
-	 * Grants uniform access for the whole maze and makes sure that we do not
-	 * cross the borders of the maze
+	 * Writes the path from a cell to the root of its search tree (at the end
+	 * of the path), following the parents from the cell
 	 * 
-	 * @param i x position
-	 * @param j y position
-	 * @return distance to the origin point, -1 if outside the graph
+	 * @param i The position of the cell in the path
+	 */
+	private static void traceForward(SolverContext context, int cell, int i) {
+		for (int last = context.pathLength(); i <= last; i++) {
+			context.setPathCell(i, cell);
+			if (i < last)
+				cell = context.parent[cell];
+		}
+	}
+
+	/**
+	 * @return The key of a cell in the open heap : f in the high bits, then
+	 *         the opposite of g to prefer the deepest cells on ties
+	 */
+	private long key(int g, int cell) {
+		int h = graph.lowerBound(cell, goal);
+		return ((long) (g + h) << 32) | (Integer.MAX_VALUE - g);
+	}
+
+	/**
+	 * @return The path found by the last search
 	 */
-	private int access_solution(int i, int j) {
-		if (i >= width || i < 0 || j >= height || j < 0)
-			return -1;
-		else
-			return solution[i][j];
+	Path path() {
+		return new Path(width, height, context.path());
+	}
+
+	/**
+	 * @return The result of the last search, as an array of the size of the
+	 *         maze with 1's along the path
+	 */
+	int[][] solution() {
+		if (solution == null && context.pathLength() >= 0) {
+			solution = new int[width][height];
+			for (int i = 0; i <= context.pathLength(); i++) {
+				int cell = context.pathCell(i);
+				solution[cell % width][cell / width] = 1;
+			}
+		}
+		return solution;
 	}
 
 	/**
@@ -105,46 +564,41 @@ public class AStar {
 	 * @param m The highest distance from origin point
 	 */
 	private void backtrace(int m) {
-		int[][] ret = new int[width][height];
+		backtrace(m, null);
+	}
 
-		int x = 0, y = 0;
+	/**
+	 * @param m The highest distance from origin point
+	 * @param reached The stamps of the parallel wave, or null if the labels
+	 *            are the ones of the context
+	 */
+	private void backtrace(int m, AtomicIntegerArray reached) {
+		int epoch = context.epoch();
+		context.setPathLength(m);
 
-		// Get the coordinates of exit in original maze
-		for (int j = 0; j < width; j++) {
-			for (int i = 0; i < height; i++) {
-				if (maze[i][j].isExit) {
-					x = i;
-					y = j;
-					break;
-				}
-			}
-		}
-		
 		// The exit is part of the solution
-		ret[x][y] = 1;
+		int cell = goal;
+		context.setPathCell(m, goal);
 		
 		/**
 		 * While we haven't reached the beginning, annotate the
-		 * solution with the correct path
+		 * solution with the correct path. The cells labelled m next to the
+		 * cell labelled m + 1 are one step closer to the start, any of them
+		 * will do.
 		 */
 		while (m > 0) {
-			if (access_solution(x - 1, y) == m && !maze[x][y].wallWest)
-				ret[--x][y] = 1;
-
-			if (access_solution(x, y - 1) == m && !maze[x][y].wallNorth)
-				ret[x][--y] = 1;
-
-			if (access_solution(x + 1, y) == m && !maze[x][y].wallEast)
-				ret[++x][y] = 1;
-
-			if (access_solution(x, y + 1) == m && !maze[x][y].wallSouth)
-				ret[x][++y] = 1;
+			for (int e = graph.offsets[cell]; e < graph.offsets[cell + 1]; e++) {
+				int nb = graph.neighbors[e];
+				int label = reached == null ? context.label(nb) : reached.get(nb) == epoch ? context.label[nb] : 0;
+				if (label == m) {
+					cell = nb;
+					break;
+				}
+			}
 
 			m--;
+			context.setPathCell(m, cell);
 		}
-
-		// Update the solution with the backprop version
-		solution = ret;
 	}
 
 	/**
@@ -180,12 +634,84 @@ public class AStar {
 	 * @return An array containing 1's along the solution path
 	 */
 	public static int[][] solve(MazeContainer mc, int x, int y){
+		return solve(mc, x, y, Mode.LEE);
+	}
+
+	/**
+	 * Same as {@link #solve(MazeContainer, int, int)} with a given algorithm
+	 * @param mc The {@link MazeContainer} that we want to solve
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @param mode The algorithm to use
+	 * @return An array containing 1's along the solution path
+	 */
+	public static int[][] solve(MazeContainer mc, int x, int y, Mode mode){
 		AStar alg = new AStar(mc);
-		alg.solve(x, y);
-		return alg.solution;
+		alg.solve(x, y, mode);
+		return alg.solution();
 	}
 
-	
+	/**
+	 * Solves the maze, without building an array of the size of the maze
+	 * @param mc The {@link MazeContainer} that we want to solve
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @param mode The algorithm to use
+	 * @return The path from the start point to the exit
+	 */
+	public static Path findPath(MazeContainer mc, int x, int y, Mode mode){
+		AStar alg = new AStar(mc);
+		alg.solve(x, y, mode);
+		return alg.path();
+	}
+
+	/**
+	 * Solves the maze in a given context, where the path is left (see
+	 * {@link SolverContext#pathCell(int)}). Once the context has grown to the
+	 * size of the maze, nothing but the small solver object is allocated. The
+	 * number of steps is not printed.
+	 * @param mc The {@link MazeContainer} that we want to solve
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @param mode The algorithm to use
+	 * @param context The context to work in
+	 * @return The number of steps of the path
+	 */
+	public static int solve(MazeContainer mc, int x, int y, Mode mode, SolverContext context){
+		AStar alg = new AStar(mc, context);
+		alg.find(x, y, mode);
+		return context.pathLength();
+	}
+
+	/**
+	 * Solves any graph in a given context, where the path is left as nodes
+	 * (see {@link SolverContext#pathCell(int)})
+	 *
+	 * The waves ({@link Mode#LEE}, {@link Mode#PARALLEL_LEE} and
+	 * {@link Mode#BIDIRECTIONAL}) go back from the goal along the edges, which
+	 * must then exist in both directions (see {@link MazeGraph#isSymmetric()},
+	 * checked when the assertions are enabled). A* follows the edges in their
+	 * direction only.
+	 * @param graph The graph, only {@link Mode#ASTAR} solves a weighted one.
+	 *            {@link Mode#ALT} is A* with the lower bound of the graph, give
+	 *            a {@link LandmarkGraph} for the landmarks.
+	 * @param start The first node of the path
+	 * @param goal The last node of the path
+	 * @param mode The algorithm to use
+	 * @param context The context to work in
+	 * @return The cost of the path, which is its number of steps if the graph
+	 *         is not weighted
+	 * @throws IllegalStateException if the goal cannot be reached
+	 */
+	public static int solve(MazeGraph graph, int start, int goal, Mode mode, SolverContext context){
+		assert mode == Mode.ASTAR || mode == Mode.ALT || graph.isSymmetric() : "The waves need edges in both directions";
+		AStar alg = new AStar(graph, context, Runtime.getRuntime().availableProcessors());
+		alg.goal = goal;
+		alg.search(start, mode);
+		return graph.isWeighted() ? context.label[goal] : context.pathLength();
+	}
+
+
 	public static void main(String args[]) {
 		/**
 		 * Create a maze and display its textual representation
@@ -198,6 +724,9 @@ public class AStar {
 		 */
 		int[][] solution = AStar.solve(mc, 0, 0);
 		AStar.displaySolution(solution);
+
+		// The same solution, as moves
+		System.out.println(AStar.findPath(mc, 0, 0, Mode.LEE));
 	}
 
 }
\ No newline at end of file
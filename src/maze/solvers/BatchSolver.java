@@ -0,0 +1,230 @@
+package maze.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import maze.data.MazeContainer;
+
+/**
+ * Answers many start/goal queries on the same maze.
+ *
+ * The queries are cut in chunks handed to a pool of threads. Each thread owns
+ * a {@link SolverContext}, kept from one query (and one batch) to the next, so
+ * that a query only costs the search itself : a bidirectional wave as
+ * {@link AStar.Mode#BIDIRECTIONAL}.
+ *
+ * A perfect maze does not need any search : its {@link TreeIndex} is built
+ * with the first batch and answers all the queries, until the maze changes.
+ * The next batch then looks again whether the maze is perfect.
+ *
+ * The queries are given as an int array of pairs of cells (see
+ * {@link MazeContainer#index(int, int)}) : start, goal, start, goal...
+ *
+ * The threads are kept from one batch to the next, {@link #close()} stops
+ * them.
+ *
+ * @version 1.5
+ */
+public class BatchSolver implements AutoCloseable {
+	// Queries given to a thread at once
+	private static final int CHUNK = 256;
+
+	private final MazeContainer maze;
+	private final int width, height;
+	private final int threads;
+
+	// One context per thread, created on first use
+	private final SolverContext[] contexts;
+
+	// The index of the maze if it is perfect, and the graph it was looked for in
+	private TreeIndex tree;
+	private MazeGraph indexed;
+
+	// The threads, created with the first batch and stopped by close()
+	private ForkJoinPool pool;
+
+	/**
+	 * Uses all the available cores
+	 * @param mc The maze, which must not change while a batch is solved
+	 */
+	public BatchSolver(MazeContainer mc) {
+		this(mc, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param mc The maze, which must not change while a batch is solved
+	 * @param threads The number of threads to use
+	 */
+	public BatchSolver(MazeContainer mc, int threads) {
+		this.maze = mc;
+		this.width = mc.nCellsX;
+		this.height = mc.nCellsY;
+		this.threads = threads;
+		this.contexts = new SolverContext[threads];
+	}
+
+	/**
+	 * @param queries Pairs of cells, start then goal
+	 * @return The length of the shortest path of each query, -1 if the goal
+	 *         cannot be reached
+	 */
+	public int[] lengths(int[] queries) {
+		int[] lengths = new int[queries.length / 2];
+		run(queries, lengths, null);
+		return lengths;
+	}
+
+	/**
+	 * @param queries Pairs of cells, start then goal
+	 * @return The shortest path of each query, null if the goal cannot be
+	 *         reached
+	 */
+	public Path[] paths(int[] queries) {
+		Path[] paths = new Path[queries.length / 2];
+		run(queries, new int[paths.length], paths);
+		return paths;
+	}
+
+	private void run(int[] queries, int[] lengths, Path[] paths) {
+		if (queries.length % 2 != 0)
+			throw new IllegalArgumentException("The queries must come in pairs");
+
+		// The graph is a new one once the maze has changed
+		MazeGraph graph = MazeGraph.of(maze);
+		if (graph != indexed) {
+			try {
+				tree = new TreeIndex(graph);
+			} catch (IllegalArgumentException e) {
+				// There are loops, the queries are searched
+				tree = null;
+			}
+			indexed = graph;
+		}
+		TreeIndex tree = this.tree;
+
+		int count = lengths.length;
+		int chunks = (count + CHUNK - 1) / CHUNK;
+		AtomicInteger nextChunk = new AtomicInteger();
+
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+		List<Future<?>> tasks = new ArrayList<>();
+		try {
+			for (int t = 0; t < Math.min(threads, chunks); t++) {
+				if (contexts[t] == null && tree == null)
+					contexts[t] = new SolverContext();
+				SolverContext context = contexts[t];
+
+				tasks.add(pool.submit(() -> {
+					for (int c; (c = nextChunk.getAndIncrement()) < chunks;) {
+						for (int q = c * CHUNK; q < Math.min(count, (c + 1) * CHUNK); q++) {
+							if (tree != null) {
+								lengths[q] = tree.distance(queries[2 * q], queries[2 * q + 1]);
+								if (paths != null)
+									paths[q] = new Path(width, height, tree.path(queries[2 * q], queries[2 * q + 1]));
+								continue;
+							}
+
+							lengths[q] = AStar.bidirectional(graph, queries[2 * q], queries[2 * q + 1], context);
+							if (paths != null && lengths[q] >= 0)
+								paths[q] = new Path(width, height, context.path());
+						}
+					}
+				}));
+			}
+			for (Future<?> task : tasks)
+				task.get();
+		} catch (InterruptedException e) {
+			for (Future<?> task : tasks)
+				task.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while solving the batch", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A query failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the threads once the current batch is solved. The solver can
+	 * still be used, the next batch starts new threads.
+	 */
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Throughput of random queries on a perfect maze and on the same maze with
+	 * loops, with 1 thread and with all the cores
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+		MazeContainer perfect = new MazeContainer(size, size, 1234, "kruskal");
+		MazeContainer loops = new MazeContainer(size, size, 1234, "kruskal");
+		Random rnd = new Random(1);
+
+		// Opens one wall out of ten
+		for (int y = 0; y < size - 1; y++)
+			for (int x = 0; x < size - 1; x++)
+				if (rnd.nextInt(10) == 0) {
+					loops.carve(x, y, MazeContainer.OPEN_EAST);
+					loops.carve(x + 1, y, MazeContainer.OPEN_WEST);
+				}
+
+		int[] queries = new int[2 * count];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = rnd.nextInt(size * size);
+
+		for (MazeContainer mc : new MazeContainer[] { perfect, loops }) {
+			for (int threads : new int[] { 1, Runtime.getRuntime().availableProcessors() }) {
+				int[] lengths;
+				double seconds;
+				try (BatchSolver solver = new BatchSolver(mc, threads)) {
+					solver.lengths(queries);
+
+					long start = System.nanoTime();
+					lengths = solver.lengths(queries);
+					seconds = (System.nanoTime() - start) / 1e9;
+				}
+
+				long total = 0;
+				for (int length : lengths)
+					total += length;
+				System.out.println(String.format("%dx%d %s, %d thread(s) : %.0f queries per second, average length %d",
+						size, size, mc == perfect ? "perfect" : "with loops", threads, count / seconds, total / count));
+			}
+		}
+
+		// The walls change between two batches of the same solver
+		MazeContainer changing = new MazeContainer(size, size, 1234, "kruskal");
+		int[] lengths;
+		try (BatchSolver solver = new BatchSolver(changing)) {
+			solver.lengths(queries);
+			for (int y = 0; y < size - 1; y++)
+				for (int x = 0; x < size - 1; x++)
+					if (rnd.nextInt(5) == 0) {
+						changing.carve(x, y, MazeContainer.OPEN_SOUTH);
+						changing.carve(x, y + 1, MazeContainer.OPEN_NORTH);
+					}
+			lengths = solver.lengths(queries);
+		}
+		MazeGraph graph = MazeGraph.of(changing);
+		SolverContext context = new SolverContext();
+		int wrong = 0;
+		for (int q = 0; q < Math.min(count, 1000); q++)
+			if (lengths[q] != AStar.solve(graph, queries[2 * q], queries[2 * q + 1], AStar.Mode.LEE, context))
+				wrong++;
+		System.out.println("Walls opened between two batches : "
+				+ (wrong == 0 ? "lengths checked" : wrong + " wrong lengths !"));
+	}
+}
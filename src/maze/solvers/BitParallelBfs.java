@@ -0,0 +1,234 @@
+package maze.solvers;
+
+import java.util.Arrays;
+
+import maze.data.MazeContainer;
+
+/**
+ * Breadth-first search working on 64 cells at a time.
+ *
+ * Each row of the maze is cut in words of 64 cells, bit i of a word being the
+ * cell at x = 64 * word + i. The passages are turned once into four bitsets
+ * (open to the north, south, east and west), so the wave moves with a few
+ * shifts and masks per word : east is {@code (f & east) << 1}, west is
+ * {@code (f & west) >>> 1}, plus a carry into the next or previous word, north
+ * and south are {@code f & north} and {@code f & south} moved to the row above
+ * or below.
+ *
+ * The wave of a maze is thin, so only the words holding part of the front are
+ * looked at, they are kept in a list and every step only touches these ones
+ * and their neighbours.
+ *
+ * @version 1.0
+ */
+public class BitParallelBfs {
+	private final int width, height;
+
+	// The number of words per row
+	private final int words;
+
+	// Where each cell has a passage, one bit per cell, row by row
+	private final long[] openNorth, openSouth, openEast, openWest;
+
+	// The working sets, reused from one search to the next
+	private final long[] frontier, next, visited;
+	private IntList active = new IntList(), touched = new IntList();
+
+	// The number of cells reached by the last search
+	long reached;
+
+	/**
+	 * Reads the passages of the maze, which must not change afterwards
+	 * @param mc The maze
+	 */
+	public BitParallelBfs(MazeContainer mc) {
+		width = mc.nCellsX;
+		height = mc.nCellsY;
+		words = (width + 63) >>> 6;
+
+		int size = words * height;
+		openNorth = new long[size];
+		openSouth = new long[size];
+		openEast = new long[size];
+		openWest = new long[size];
+		frontier = new long[size];
+		next = new long[size];
+		visited = new long[size];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int passages = mc.getCell(y * width + x);
+				int word = y * words + (x >>> 6);
+				long bit = 1L << x;
+				if ((passages & MazeContainer.OPEN_NORTH) != 0)
+					openNorth[word] |= bit;
+				if ((passages & MazeContainer.OPEN_SOUTH) != 0)
+					openSouth[word] |= bit;
+				if ((passages & MazeContainer.OPEN_EAST) != 0)
+					openEast[word] |= bit;
+				if ((passages & MazeContainer.OPEN_WEST) != 0)
+					openWest[word] |= bit;
+			}
+		}
+	}
+
+	/**
+	 * Computes the distance of every cell to a start point
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @return The distances, row-major (see {@link MazeContainer#index(int, int)}),
+	 *         -1 for the cells that cannot be reached
+	 */
+	public int[] distances(int x, int y) {
+		int[] distance = new int[width * height];
+		Arrays.fill(distance, -1);
+		search(x, y, -1, distance);
+		return distance;
+	}
+
+	/**
+	 * @return The length of the shortest path between two cells, -1 if there
+	 *         is none. The search stops as soon as the target is reached.
+	 */
+	public int distance(int x, int y, int targetX, int targetY) {
+		return search(x, y, targetY * width + targetX, null);
+	}
+
+	/**
+	 * Runs the wave from (x, y)
+	 *
+	 * @param target The cell to stop at, -1 to reach every cell
+	 * @param distance Where the distances are written, may be null
+	 * @return The distance of the target, or the number of steps when there is
+	 *         no target, -1 if the target cannot be reached
+	 */
+	private int search(int x, int y, int target, int[] distance) {
+		Arrays.fill(visited, 0);
+		active.clear();
+
+		int start = y * words + (x >>> 6);
+		frontier[start] = visited[start] = 1L << x;
+		active.add(start);
+		if (distance != null)
+			distance[y * width + x] = 0;
+		reached = 1;
+
+		int targetWord = target < 0 ? -1 : (target / width) * words + ((target % width) >>> 6);
+		long targetBit = target < 0 ? 0 : 1L << (target % width);
+
+		int step = 0;
+		if (target == y * width + x)
+			return 0;
+
+		while (active.size > 0) {
+			step++;
+			touched.clear();
+
+			for (int k = 0; k < active.size; k++) {
+				int i = active.get(k);
+				long f = frontier[i];
+				frontier[i] = 0;
+
+				long east = f & openEast[i];
+				if (east != 0) {
+					reach(i, east << 1);
+					if (east < 0)
+						reach(i + 1, 1L);
+				}
+				long west = f & openWest[i];
+				if (west != 0) {
+					reach(i, west >>> 1);
+					if ((west & 1) != 0)
+						reach(i - 1, 1L << 63);
+				}
+				long south = f & openSouth[i];
+				if (south != 0)
+					reach(i + words, south);
+				long north = f & openNorth[i];
+				if (north != 0)
+					reach(i - words, north);
+			}
+
+			// The new front becomes the current one
+			for (int k = 0; k < touched.size; k++) {
+				int i = touched.get(k);
+				long bits = next[i];
+				next[i] = 0;
+				frontier[i] = bits;
+				visited[i] |= bits;
+				reached += Long.bitCount(bits);
+
+				if (distance != null) {
+					int base = (i / words) * width + ((i % words) << 6);
+					for (long b = bits; b != 0; b &= b - 1)
+						distance[base + Long.numberOfTrailingZeros(b)] = step;
+				}
+			}
+
+			if (targetWord >= 0 && (visited[targetWord] & targetBit) != 0) {
+				for (int k = 0; k < touched.size; k++)
+					frontier[touched.get(k)] = 0;
+				return step;
+			}
+
+			IntList swap = active;
+			active = touched;
+			touched = swap;
+		}
+		return target < 0 ? step - 1 : -1;
+	}
+
+	/**
+	 * Adds cells to the next front, unless they have been reached already
+	 */
+	private void reach(int i, long bits) {
+		bits &= ~visited[i];
+		if (bits == 0)
+			return;
+		if (next[i] == 0)
+			touched.add(i);
+		next[i] |= bits;
+	}
+
+	/**
+	 * Compares the time to reach the exit with the Lee wave of {@link AStar},
+	 * then computes a whole distance field
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		String generator = args.length > 1 ? args[1] : "kruskal";
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, generator);
+		int exit = mc.getExit();
+
+		long start = System.nanoTime();
+		BitParallelBfs bfs = new BitParallelBfs(mc);
+		double masks = (System.nanoTime() - start) / 1e6;
+
+		AStar lee = new AStar(mc);
+
+		// Warm-up
+		for (int i = 0; i < 3; i++) {
+			bfs.distance(0, 0, exit % size, exit / size);
+			lee.find(0, 0, AStar.Mode.LEE);
+		}
+
+		start = System.nanoTime();
+		int steps = bfs.distance(0, 0, exit % size, exit / size);
+		double bitTime = (System.nanoTime() - start) / 1e6;
+
+		start = System.nanoTime();
+		lee.find(0, 0, AStar.Mode.LEE);
+		double leeTime = (System.nanoTime() - start) / 1e6;
+
+		System.out.println(String.format("%s %dx%d, masks built in %.1f ms", generator, size, size, masks));
+		System.out.println(String.format("  to the exit   : bit-parallel %8.1f ms, Lee %8.1f ms (%d steps)", bitTime,
+				leeTime, steps));
+
+		start = System.nanoTime();
+		int[] distance = bfs.distances(0, 0);
+		double fieldTime = (System.nanoTime() - start) / 1e6;
+		System.out.println(String.format("  distance field: bit-parallel %8.1f ms (%d cells, exit at %d)", fieldTime,
+				bfs.reached, distance[exit]));
+	}
+}
@@ -0,0 +1,399 @@
+package maze.solvers;
+
+import java.util.Random;
+
+import maze.data.MazeContainer;
+
+/**
+ * A maze reduced to its junctions and dead ends
+ *
+ * Most cells of a maze are corridor cells, with exactly two open sides : a
+ * search entering one of them has a single way to go on. The corridor graph
+ * only keeps the other cells (junctions and dead ends) as nodes, and each
+ * corridor between two of them becomes a single edge weighted by its length.
+ *
+ * A query from a cell to another one starts from the ends of the corridor of
+ * the first cell and stops at the ends of the corridor of the second one, the
+ * small graph being searched by A* in between. The corridors are only walked
+ * again, cell by cell, when the path itself is asked for.
+ *
+ * The passages must be open on both sides, and the maze must not change once
+ * the graph is built. A corridor graph must not be shared between threads.
+ *
+ * @version 1.0
+ */
+public class CorridorGraph {
+	// The distance of the goal when it cannot be reached
+	private static final int INF = Integer.MAX_VALUE;
+
+	// The graph of the cells
+	private final MazeGraph cells;
+
+	// The contracted graph, weighted by the length of the corridors
+	private final MazeGraph graph;
+
+	// The cell of each node, and the node of each cell (-1 in a corridor)
+	private final int[] cellOf, nodeOf;
+
+	// The node each edge starts from, and the first edge of its corridor in the graph of the cells
+	private final int[] source, first;
+
+	// The labels and the heap of the searches
+	private final SolverContext context = new SolverContext();
+
+	// The best way to the goal found by the last search
+	private int bestNode, bestTarget, direct;
+
+	// The ends of the corridor of the goal : their node, the edge from the goal to them and their distance
+	private final int[] targetNode = new int[2], targetEdge = new int[2], targetCost = new int[2];
+
+	// The number of nodes expanded by the last search
+	long expanded;
+
+	/**
+	 * @param mc The maze, which must not change afterwards
+	 */
+	public CorridorGraph(MazeContainer mc) {
+		this(MazeGraph.of(mc));
+	}
+
+	/**
+	 * Contracts the corridors of a graph
+	 * @param cells The graph, each edge given in both directions
+	 */
+	public CorridorGraph(MazeGraph cells) {
+		this.cells = cells;
+		int n = cells.nodes;
+		int[] offsets = cells.offsets;
+
+		nodeOf = new int[n];
+		IntList nodes = new IntList();
+		for (int cell = 0; cell < n; cell++) {
+			nodeOf[cell] = offsets[cell + 1] - offsets[cell] == 2 ? -1 : nodes.size;
+			if (nodeOf[cell] >= 0)
+				nodes.add(cell);
+		}
+
+		IntList edgeOffsets = new IntList(), ends = new IntList(), lengths = new IntList();
+		IntList from = new IntList(), starts = new IntList(), walked = new IntList();
+		long[] visited = new long[(n + 63) >>> 6];
+		edgeOffsets.add(0);
+
+		// The corridors going out of each node, in the order of the nodes
+		for (int node = 0, loop = 0;; node++) {
+			if (node == nodes.size) {
+				// The corridor cells left are in loops without any junction, one cell of a loop becomes a node
+				while (loop < n && (nodeOf[loop] >= 0 || (visited[loop >>> 6] & (1L << loop)) != 0))
+					loop++;
+				if (loop == n)
+					break;
+				nodeOf[loop] = nodes.size;
+				nodes.add(loop);
+			}
+
+			int cell = nodes.get(node);
+			for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+				walked.clear();
+				long end = walk(cell, e, -1, walked);
+				for (int k = 0; k < walked.size; k++)
+					visited[walked.get(k) >>> 6] |= 1L << walked.get(k);
+
+				ends.add(nodeOf[(int) end]);
+				lengths.add((int) (end >>> 32));
+				from.add(node);
+				starts.add(e);
+			}
+			edgeOffsets.add(ends.size);
+		}
+
+		cellOf = nodes.toArray();
+		source = from.toArray();
+		first = starts.toArray();
+		graph = new MazeGraph(edgeOffsets.toArray(), ends.toArray(), lengths.toArray());
+	}
+
+	/**
+	 * Follows a corridor until its end
+	 * @param from The cell the walk starts from
+	 * @param e The edge (of the graph of the cells) taken first
+	 * @param stop A cell where the walk stops even in a corridor, -1 for none
+	 * @param out Where the cells after the first one are added, null if not
+	 *            needed
+	 * @return The cell where the walk stopped (a node or stop) in the low
+	 *         bits, the cost of the walk in the high bits
+	 */
+	private long walk(int from, int e, int stop, IntList out) {
+		int[] offsets = cells.offsets, neighbors = cells.neighbors, weights = cells.weights;
+		int prev = from, cell = neighbors[e];
+		long length = weights == null ? 1 : weights[e];
+
+		for (int steps = 1; nodeOf[cell] < 0 && cell != stop; steps++) {
+			// A loop which does not come back, some passage is only open on one side
+			if (steps > cells.nodes)
+				throw new IllegalArgumentException("The passages must be open on both sides");
+			if (out != null)
+				out.add(cell);
+
+			int f = offsets[cell];
+			if (neighbors[f] == prev)
+				f++;
+			prev = cell;
+			cell = neighbors[f];
+			length += weights == null ? 1 : weights[f];
+		}
+		if (out != null)
+			out.add(cell);
+		return length << 32 | cell;
+	}
+
+	/**
+	 * @return The contracted graph, for the solvers working on graphs (see
+	 *         {@link AStar#solve(MazeGraph, int, int, AStar.Mode, SolverContext)})
+	 */
+	public MazeGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * @return The number of nodes, junctions and dead ends
+	 */
+	public int nodes() {
+		return graph.nodes;
+	}
+
+	/**
+	 * @return The node of a cell, -1 if the cell is in a corridor
+	 */
+	public int node(int cell) {
+		return nodeOf[cell];
+	}
+
+	/**
+	 * @return The cell of a node
+	 */
+	public int cell(int node) {
+		return cellOf[node];
+	}
+
+	/**
+	 * @param from A cell, see {@link MazeContainer#index(int, int)}
+	 * @param to Another cell
+	 * @return The number of steps of the shortest path between both cells, -1
+	 *         if there is none
+	 */
+	public int distance(int from, int to) {
+		return search(from, to);
+	}
+
+	/**
+	 * @param from The first cell, see {@link MazeContainer#index(int, int)}
+	 * @param to The last cell
+	 * @return The cells of the shortest path, both included, null if there is
+	 *         none
+	 */
+	public int[] path(int from, int to) {
+		if (search(from, to) < 0)
+			return null;
+
+		IntList out = new IntList();
+		out.add(from);
+		if (bestNode < 0) {
+			// Along the corridor of the start, or no move at all
+			if (direct >= 0)
+				walk(from, direct, to, out);
+			return out.toArray();
+		}
+
+		// The corridors crossed, backwards from the last node
+		IntList edges = new IntList();
+		int node = bestNode, tag;
+		while ((tag = context.parent[node]) >= 0) {
+			edges.add(tag);
+			node = source[tag];
+		}
+
+		// To the first node, then each corridor, then from the last node to the goal
+		if (tag <= -2)
+			walk(from, cells.offsets[from] - 2 - tag, -1, out);
+		for (int i = edges.size - 1; i >= 0; i--) {
+			int e = edges.get(i);
+			walk(cellOf[source[e]], first[e], -1, out);
+		}
+		if (targetEdge[bestTarget] >= 0) {
+			IntList back = new IntList();
+			walk(to, targetEdge[bestTarget], -1, back);
+			for (int i = back.size - 2; i >= 0; i--)
+				out.add(back.get(i));
+			out.add(to);
+		}
+		return out.toArray();
+	}
+
+	/**
+	 * A* on the contracted graph, started from the ends of the corridor of the
+	 * start (or from the start if it is a node). A node which is an end of the
+	 * corridor of the goal gives a way to the goal, the search stops when no
+	 * open node can give a shorter one.
+	 * @return The cost of the shortest path, -1 if there is none
+	 */
+	private int search(int from, int to) {
+		int[] offsets = graph.offsets, neighbors = graph.neighbors, weights = graph.weights;
+		context.begin(graph.nodes);
+		int[] g = context.label;
+		IndexedMinHeap open = context.heap();
+		expanded = 0;
+		bestNode = direct = -1;
+		int best = from == to ? 0 : INF;
+
+		// Where the search starts, the parent of a start node tells how it is reached
+		if (from == to) {
+			// Nothing to search
+		} else if (nodeOf[from] >= 0) {
+			seed(nodeOf[from], 0, -1, to);
+		} else {
+			for (int k = 0; k < 2; k++) {
+				int e = cells.offsets[from] + k;
+				long end = walk(from, e, to, null);
+				int cost = (int) (end >>> 32);
+				if ((int) end == to) {
+					// The goal is in the same corridor, on this side
+					if (cost < best) {
+						best = cost;
+						direct = e;
+					}
+				} else {
+					seed(nodeOf[(int) end], cost, -2 - k, to);
+				}
+			}
+		}
+
+		// Where it ends
+		if (nodeOf[to] >= 0) {
+			targetNode[0] = nodeOf[to];
+			targetEdge[0] = -1;
+			targetCost[0] = 0;
+			targetNode[1] = -1;
+		} else {
+			for (int k = 0; k < 2; k++) {
+				int e = cells.offsets[to] + k;
+				long end = walk(to, e, -1, null);
+				targetNode[k] = nodeOf[(int) end];
+				targetEdge[k] = e;
+				targetCost[k] = (int) (end >>> 32);
+			}
+		}
+
+		while (!open.isEmpty() && (open.minKey() >>> 32) < best) {
+			int node = open.poll();
+			context.close(node);
+			expanded++;
+
+			for (int k = 0; k < 2; k++) {
+				if (targetNode[k] == node && g[node] + targetCost[k] < best) {
+					best = g[node] + targetCost[k];
+					bestNode = node;
+					bestTarget = k;
+				}
+			}
+
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int next = neighbors[e];
+				if (context.isClosed(next))
+					continue;
+
+				int cost = g[node] + weights[e];
+				if (!open.contains(next) || cost < g[next]) {
+					context.setLabel(next, cost);
+					context.parent[next] = e;
+					open.put(next, key(cost, next, to));
+				}
+			}
+		}
+		return best == INF ? -1 : best;
+	}
+
+	/**
+	 * Opens a node where the search starts
+	 * @param tag -1 for the start itself, -2 - k for the end of its corridor
+	 *            reached by its k-th edge
+	 */
+	private void seed(int node, int cost, int tag, int to) {
+		IndexedMinHeap open = context.heap;
+		if (!open.contains(node) || cost < context.label[node]) {
+			context.setLabel(node, cost);
+			context.parent[node] = tag;
+			open.put(node, key(cost, node, to));
+		}
+	}
+
+	/**
+	 * @return The key of a node in the open heap, as for {@link AStar}
+	 */
+	private long key(int g, int node, int to) {
+		int h = cells.lowerBound(cellOf[node], to);
+		return ((long) (g + h) << 32) | (Integer.MAX_VALUE - g);
+	}
+
+	/**
+	 * Contracts mazes of several generators, with and without loops, and
+	 * compares random queries with A* on the cells
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+		for (String generator : new String[] { "kruskal", "backtracker", "kruskal+loops" }) {
+			MazeContainer mc = new MazeContainer(size, size, 1234, generator.replace("+loops", ""));
+			Random rnd = new Random(1);
+			if (generator.endsWith("+loops")) {
+				// Opens one wall out of ten
+				for (int y = 0; y < size - 1; y++)
+					for (int x = 0; x < size - 1; x++)
+						if (rnd.nextInt(10) == 0) {
+							mc.carve(x, y, MazeContainer.OPEN_EAST);
+							mc.carve(x + 1, y, MazeContainer.OPEN_WEST);
+						}
+			}
+			MazeGraph cells = MazeGraph.of(mc);
+
+			long start = System.nanoTime();
+			CorridorGraph corridors = new CorridorGraph(cells);
+			double build = (System.nanoTime() - start) / 1e6;
+
+			int[] pairs = new int[2 * queries];
+			for (int i = 0; i < pairs.length; i++)
+				pairs[i] = rnd.nextInt(size * size);
+
+			SolverContext context = new SolverContext();
+			long cellsTime = 0, corridorTime = 0, cellsExpanded = 0, corridorExpanded = 0;
+			int wrong = 0;
+			for (int q = -1; q < queries; q++) {
+				// The first query warms up
+				int a = pairs[Math.max(0, 2 * q)], b = pairs[Math.max(0, 2 * q) + 1];
+
+				start = System.nanoTime();
+				int expected = AStar.solve(cells, a, b, AStar.Mode.ASTAR, context);
+				long t1 = System.nanoTime();
+				int length = corridors.path(a, b).length - 1;
+				long t2 = System.nanoTime();
+
+				if (q >= 0) {
+					cellsTime += t1 - start;
+					corridorTime += t2 - t1;
+					cellsExpanded += context.expanded;
+					corridorExpanded += corridors.expanded;
+					if (length != expected)
+						wrong++;
+				}
+			}
+
+			System.out.println(String.format(
+					"%s %dx%d : %d nodes for %d cells (%.1fx fewer), built in %.0f ms", generator, size, size,
+					corridors.nodes(), cells.nodes, (double) cells.nodes / corridors.nodes(), build));
+			System.out.println(String.format(
+					"  A* on the cells : %.2f ms, %d expanded ; on the corridors : %.2f ms, %d expanded%s",
+					cellsTime / 1e6 / queries, cellsExpanded / queries, corridorTime / 1e6 / queries,
+					corridorExpanded / queries, wrong == 0 ? "" : " (" + wrong + " wrong lengths !)"));
+		}
+	}
+}
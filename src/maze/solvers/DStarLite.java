@@ -0,0 +1,306 @@
+package maze.solvers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import maze.data.MazeContainer;
+import maze.data.MazeUtils.Direction;
+
+/**
+ * Incremental solver (D* Lite) for mazes whose walls change while they are
+ * being played
+ *
+ * The search goes backwards from the exit to the player, and keeps its state
+ * between two calls : g is the distance to the exit found so far, rhs the one
+ * given by the neighbours. A cell whose walls changed only gets its rhs
+ * computed again, and the search only processes the cells that became
+ * inconsistent (g != rhs) because of it, in the order of an A* towards the
+ * player. The work is thus proportional to the part of the maze the change
+ * has an effect on, and not to the size of the maze.
+ *
+ * The player can move between two searches, the keys of the open cells are
+ * then corrected lazily (the km offset of D* Lite). The exit must not move.
+ *
+ * A move from a cell to its neighbour is possible if the passage is open on
+ * the side of the cell, as for {@link AStar}.
+ *
+ * @version 1.0
+ */
+public class DStarLite {
+	// The distance of the cells that cannot reach the exit
+	private static final int INF = Integer.MAX_VALUE / 2;
+
+	private final MazeContainer maze;
+	private final int width, height;
+
+	// The exit, where the search starts, and the player, where it goes to
+	private final int goal;
+	private int start, last;
+
+	// The key offset accumulated by the moves of the player
+	private int km;
+
+	private final int[] g, rhs;
+	private final IndexedMinHeap open;
+
+	// The cells whose walls changed since the last search
+	private final IntList changed = new IntList();
+
+	// The number of cells expanded by the last search
+	long expanded;
+
+	/**
+	 * @param mc The maze
+	 * @param x The x-coordinate of the player
+	 * @param y The y-coordinate of the player
+	 * @throws IllegalStateException if the maze has no exit
+	 */
+	public DStarLite(MazeContainer mc, int x, int y) {
+		maze = mc;
+		width = mc.nCellsX;
+		height = mc.nCellsY;
+		goal = mc.getExit();
+		if (goal < 0)
+			throw new IllegalStateException("The maze has no exit");
+		start = last = y * width + x;
+
+		int n = width * height;
+		g = new int[n];
+		rhs = new int[n];
+		Arrays.fill(g, INF);
+		Arrays.fill(rhs, INF);
+		open = new IndexedMinHeap(n);
+
+		rhs[goal] = 0;
+		open.put(goal, key(goal));
+	}
+
+	/**
+	 * Opens or closes a wall, on both sides, and remembers the change for the
+	 * next search
+	 * @param x The x-coordinate of the cell
+	 * @param y The y-coordinate of the cell
+	 * @param side The side of the cell
+	 * @param wall True to close the wall
+	 */
+	public void setWall(int x, int y, Direction side, boolean wall) {
+		int dir = side.ordinal();
+		int nx = x + DX[dir], ny = y + DY[dir];
+		if (nx < 0 || nx >= width || ny < 0 || ny >= height)
+			throw new IllegalArgumentException("No cell on the " + side + " side of (" + x + ", " + y + ")");
+
+		setPassage(y * width + x, OPEN[dir], !wall);
+		setPassage(ny * width + nx, OPEN[OPPOSITE[dir]], !wall);
+	}
+
+	private void setPassage(int cell, int bit, boolean open) {
+		int bits = maze.getCell(cell);
+		maze.setCell(cell, open ? bits | bit : bits & ~bit);
+		changed.add(cell);
+	}
+
+	/**
+	 * Tells that the walls of a cell were changed directly in the maze
+	 * @param cell The cell, see {@link MazeContainer#index(int, int)}
+	 */
+	public void cellChanged(int cell) {
+		changed.add(cell);
+	}
+
+	/**
+	 * Moves the player, the next search goes from there
+	 */
+	public void moveTo(int x, int y) {
+		start = y * width + x;
+		km += h(last);
+		last = start;
+	}
+
+	/**
+	 * Brings the distances up to date with the changes and the position of
+	 * the player
+	 * @return The distance from the player to the exit, -1 if it cannot be
+	 *         reached
+	 */
+	public int solve() {
+		expanded = 0;
+
+		/**
+		 * Only the moves out of a cell depend on its passages, so only the rhs
+		 * of the changed cells has to be computed again
+		 */
+		for (int k = 0; k < changed.size; k++)
+			update(changed.get(k));
+		changed.clear();
+
+		while (!open.isEmpty() && (open.minKey() < key(start) || rhs[start] != g[start])) {
+			int u = open.peek();
+			long oldKey = open.minKey(), newKey = key(u);
+			expanded++;
+
+			if (oldKey < newKey) {
+				// The player has moved since u was queued
+				open.put(u, newKey);
+			} else if (g[u] > rhs[u]) {
+				// Overconsistent, its distance is now known
+				g[u] = rhs[u];
+				open.remove(u);
+				updatePredecessors(u);
+			} else {
+				// Underconsistent, the distance has grown
+				g[u] = INF;
+				update(u);
+				updatePredecessors(u);
+			}
+		}
+		return g[start] >= INF ? -1 : g[start];
+	}
+
+	/**
+	 * Computes the rhs of a cell from its neighbours and queues it if it is
+	 * inconsistent
+	 */
+	private void update(int u) {
+		if (u != goal) {
+			int best = INF;
+			int ux = u % width, uy = u / width;
+			int passages = maze.getCell(u);
+			for (int dir = 0; dir < 4; dir++) {
+				if ((passages & OPEN[dir]) == 0)
+					continue;
+				int v = (uy + DY[dir]) * width + ux + DX[dir];
+				if (g[v] + 1 < best)
+					best = g[v] + 1;
+			}
+			rhs[u] = best;
+		}
+
+		if (g[u] != rhs[u])
+			open.put(u, key(u));
+		else
+			open.remove(u);
+	}
+
+	/**
+	 * Updates the cells from which u can be reached in one move
+	 */
+	private void updatePredecessors(int u) {
+		int ux = u % width, uy = u / width;
+		for (int dir = 0; dir < 4; dir++) {
+			int vx = ux + DX[dir], vy = uy + DY[dir];
+			if (vx < 0 || vx >= width || vy < 0 || vy >= height)
+				continue;
+			int v = vy * width + vx;
+			if ((maze.getCell(v) & OPEN[OPPOSITE[dir]]) != 0)
+				update(v);
+		}
+	}
+
+	/**
+	 * @return The key of a cell : min(g, rhs) + h + km, then min(g, rhs)
+	 */
+	private long key(int u) {
+		int m = Math.min(g[u], rhs[u]);
+		return ((long) (m + h(u) + km) << 32) | m;
+	}
+
+	/**
+	 * @return The Manhattan distance from the player to a cell
+	 */
+	private int h(int u) {
+		return Math.abs(u % width - start % width) + Math.abs(u / width - start / width);
+	}
+
+	/**
+	 * @return The path from the player to the exit found by the last search,
+	 *         null if there is none
+	 */
+	public Path path() {
+		if (g[start] >= INF)
+			return null;
+
+		// Down the distances, to the closest neighbour at each move
+		int[] cells = new int[g[start] + 1];
+		int u = start;
+		cells[0] = u;
+		for (int i = 1; i < cells.length; i++) {
+			int ux = u % width, uy = u / width;
+			int passages = maze.getCell(u);
+			int best = -1;
+			for (int dir = 0; dir < 4; dir++) {
+				if ((passages & OPEN[dir]) == 0)
+					continue;
+				int v = (uy + DY[dir]) * width + ux + DX[dir];
+				if (best < 0 || g[v] < g[best])
+					best = v;
+			}
+			u = best;
+			cells[i] = u;
+		}
+		return new Path(width, height, cells);
+	}
+
+	// Directions, in the order north, south, east, west, as the Direction values
+	private static final int[] OPEN = { MazeContainer.OPEN_NORTH, MazeContainer.OPEN_SOUTH,
+			MazeContainer.OPEN_EAST, MazeContainer.OPEN_WEST };
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { -1, 1, 0, 0 };
+	private static final int[] OPPOSITE = { 1, 0, 3, 2 };
+
+	/**
+	 * Toggles random walls of a maze with loops and compares the repair with
+	 * solving the maze again
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int batches = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int edits = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+		Random rnd = new Random(1);
+
+		// Opens one wall out of ten, so that closing one seldom cuts the maze
+		for (int y = 0; y < size - 1; y++)
+			for (int x = 0; x < size - 1; x++)
+				if (rnd.nextInt(10) == 0) {
+					mc.carve(x, y, MazeContainer.OPEN_SOUTH);
+					mc.carve(x, y + 1, MazeContainer.OPEN_NORTH);
+				}
+
+		DStarLite solver = new DStarLite(mc, 0, 0);
+		long start = System.nanoTime();
+		int distance = solver.solve();
+		System.out.println(String.format("%dx%d, first search : %.1f ms, %d cells expanded, distance %d", size,
+				size, (System.nanoTime() - start) / 1e6, solver.expanded, distance));
+
+		AStar full = new AStar(mc);
+		long repairTime = 0, fullTime = 0, repairExpanded = 0, fullExpanded = 0;
+		int solved = 0;
+		for (int b = 0; b < batches; b++) {
+			for (int e = 0; e < edits; e++) {
+				int x = rnd.nextInt(size - 1), y = rnd.nextInt(size - 1);
+				Direction side = rnd.nextBoolean() ? Direction.RIGHT : Direction.DOWN;
+				boolean wall = side == Direction.RIGHT ? mc.wallEast(x, y) : mc.wallSouth(x, y);
+				solver.setWall(x, y, side, !wall);
+			}
+
+			start = System.nanoTime();
+			distance = solver.solve();
+			repairTime += System.nanoTime() - start;
+			repairExpanded += solver.expanded;
+
+			// The Lee wave cannot tell the exit was cut off
+			if (distance < 0)
+				continue;
+			start = System.nanoTime();
+			full.find(0, 0, AStar.Mode.LEE);
+			fullTime += System.nanoTime() - start;
+			fullExpanded += full.expanded;
+			solved++;
+		}
+
+		System.out.println(String.format("%d edits per batch : repair %.2f ms (%d cells), Lee %.2f ms (%d cells)",
+				edits, repairTime / 1e6 / batches, repairExpanded / batches, fullTime / 1e6 / Math.max(1, solved),
+				fullExpanded / Math.max(1, solved)));
+	}
+}
@@ -0,0 +1,214 @@
+package maze.solvers;
+
+import java.util.Random;
+
+import maze.data.MazeContainer;
+
+/**
+ * Dijkstra's algorithm with a bucket queue (Dial), for the weighted graphs
+ * whose edges have small integer costs, such as a maze whose cells cost
+ * something to enter (see {@link MazeContainer#setCost(int, int)})
+ *
+ * The open nodes are not kept in a heap but in buckets, one for each
+ * distance. As no edge costs more than C, the open nodes are all within C of
+ * the one being expanded : C + 1 buckets used as a ring are enough, the
+ * distance d going in bucket d % (C + 1). The buckets are then read in order,
+ * each node being taken out in O(1) instead of O(log n), and the search takes
+ * O(E + D) for a path costing D.
+ *
+ * A node is not moved when its distance decreases, it is added again to its
+ * new bucket and the old entry is skipped when its bucket is read.
+ *
+ * @version 1.0
+ */
+public class DialSolver {
+
+	private DialSolver() {
+	}
+
+	/**
+	 * Finds the cheapest path from a cell to the exit, on the weighted graph
+	 * of the maze (see {@link MazeGraph#weighted(MazeContainer)})
+	 * @param mc The maze
+	 * @param x The x-coordinate of the start point
+	 * @param y The y-coordinate of the start point
+	 * @param context Where the search works, the path is left there
+	 * @return The cost of the path
+	 * @throws IllegalStateException if the exit is missing or cannot be
+	 *             reached
+	 */
+	public static int solve(MazeContainer mc, int x, int y, SolverContext context) {
+		int exit = mc.getExit();
+		if (exit < 0)
+			throw new IllegalStateException("The maze has no exit");
+		return solve(MazeGraph.weighted(mc), mc.index(x, y), exit, context);
+	}
+
+	/**
+	 * Finds the cheapest path between two nodes of a graph, the path is left
+	 * in the context as nodes (see {@link SolverContext#pathCell(int)})
+	 * @param graph The graph, weighted or not
+	 * @param start The first node of the path
+	 * @param goal The last node of the path
+	 * @param context Where the search works
+	 * @return The cost of the path
+	 * @throws IllegalStateException if the goal cannot be reached
+	 */
+	public static int solve(MazeGraph graph, int start, int goal, SolverContext context) {
+		int[] offsets = graph.offsets, neighbors = graph.neighbors, weights = graph.weights;
+		int span = graph.maxWeight() + 1;
+
+		context.begin(graph.nodes);
+		IntList[] buckets = context.buckets(span);
+		int[] g = context.label;
+
+		context.setLabel(start, 0);
+		context.parent[start] = start;
+		buckets[0].add(start);
+
+		// The entries in the buckets, stale ones included
+		int open = 1;
+		boolean found = false;
+
+		for (int d = 0, slot = 0; open > 0 && !found; d++) {
+			IntList bucket = buckets[slot];
+
+			/**
+			 * The edges cost at least 1, nothing is added to this bucket
+			 * while it is read
+			 */
+			for (int i = 0; i < bucket.size; i++) {
+				int node = bucket.data[i];
+				if (context.isClosed(node) || g[node] != d)
+					continue;
+				context.close(node);
+				context.expanded++;
+
+				if (node == goal) {
+					found = true;
+					break;
+				}
+
+				for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+					int next = neighbors[e];
+					if (context.isClosed(next))
+						continue;
+
+					int w = weights == null ? 1 : weights[e];
+					if (!context.labelled(next) || d + w < g[next]) {
+						context.setLabel(next, d + w);
+						context.parent[next] = node;
+						int s = slot + w;
+						buckets[s < span ? s : s - span].add(next);
+						open++;
+					}
+				}
+			}
+
+			open -= bucket.size;
+			bucket.clear();
+			if (++slot == span)
+				slot = 0;
+		}
+
+		if (!found)
+			throw new IllegalStateException("The exit cannot be reached");
+
+		int steps = 0;
+		for (int cell = goal; cell != start; cell = context.parent[cell])
+			steps++;
+		context.setPathLength(steps);
+		AStar.traceBack(context, goal, steps);
+		return g[goal];
+	}
+
+	/**
+	 * Gives a maze costs : patches of mud and a few doors, on a maze with
+	 * some loops so that going around them can be cheaper
+	 * @param mc The maze
+	 * @param seed The seed of the costs
+	 */
+	static void addTerrain(MazeContainer mc, long seed) {
+		Random rnd = new Random(seed);
+		int width = mc.nCellsX, height = mc.nCellsY;
+
+		for (int y = 0; y < height - 1; y++)
+			for (int x = 0; x < width - 1; x++)
+				if (rnd.nextInt(100) < 10) {
+					mc.carve(x, y, MazeContainer.OPEN_SOUTH);
+					mc.carve(x, y + 1, MazeContainer.OPEN_NORTH);
+				}
+
+		// Mud, in squares of 1 to 16 cells of side
+		for (int patch = width * height / 64; patch > 0; patch--) {
+			int side = 1 + rnd.nextInt(16), cost = 2 + rnd.nextInt(6);
+			int px = rnd.nextInt(width), py = rnd.nextInt(height);
+			for (int y = py; y < Math.min(height, py + side); y++)
+				for (int x = px; x < Math.min(width, px + side); x++)
+					mc.setCost(x, y, cost);
+		}
+
+		// Doors
+		for (int door = width * height / 100; door > 0; door--)
+			mc.setCost(rnd.nextInt(width * height), 20 + rnd.nextInt(40));
+	}
+
+	/**
+	 * Compares the buckets with Dijkstra using a binary heap (A* with a lower
+	 * bound of 0), and with A*, on the same weighted mazes
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		for (String algorithm : new String[] { "kruskal", "backtracker" }) {
+			MazeContainer mc = new MazeContainer(size, size, 1234, algorithm);
+			addTerrain(mc, 1);
+
+			MazeGraph graph = MazeGraph.weighted(mc);
+
+			// The same arrays without the grid, the lower bound of A* is then 0
+			MazeGraph plain = new MazeGraph(graph.offsets, graph.neighbors, graph.weights);
+
+			SolverContext context = new SolverContext();
+			Random rnd = new Random(1);
+			long dialTime = 0, heapTime = 0, astarTime = 0;
+			long dialExpanded = 0, heapExpanded = 0, astarExpanded = 0;
+			int wrong = 0;
+
+			for (int q = -1; q < queries; q++) {
+				// The first query warms up
+				int a = rnd.nextInt(size * size), b = rnd.nextInt(size * size);
+
+				long start = System.nanoTime();
+				int cost = solve(graph, a, b, context);
+				long t1 = System.nanoTime();
+				long expanded = context.expanded;
+				int heapCost = AStar.solve(plain, a, b, AStar.Mode.ASTAR, context);
+				long t2 = System.nanoTime();
+				long heapCount = context.expanded;
+				int astarCost = AStar.solve(graph, a, b, AStar.Mode.ASTAR, context);
+				long t3 = System.nanoTime();
+
+				if (q >= 0) {
+					dialTime += t1 - start;
+					heapTime += t2 - t1;
+					astarTime += t3 - t2;
+					dialExpanded += expanded;
+					heapExpanded += heapCount;
+					astarExpanded += context.expanded;
+					if (heapCost != cost || astarCost != cost)
+						wrong++;
+				}
+			}
+
+			System.out.println(String.format("%dx%d %s with mud and doors, costs 1 to %d", size, size, algorithm,
+					graph.maxWeight()));
+			System.out.println(String.format(
+					"  Dial : %.2f ms, %d expanded ; binary heap : %.2f ms, %d expanded ; A* : %.2f ms, %d expanded%s",
+					dialTime / 1e6 / queries, dialExpanded / queries, heapTime / 1e6 / queries,
+					heapExpanded / queries, astarTime / 1e6 / queries, astarExpanded / queries,
+					wrong == 0 ? "" : " (" + wrong + " wrong costs !)"));
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package maze.solvers;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+import maze.data.MazeContainer;
+import maze.data.MazeUtils.Direction;
+
+/**
+ * The way to the exit from every cell of a maze
+ *
+ * A single wave is started from the exit, it gives the distance of every cell
+ * to the exit and the direction of the next move towards it. Any number of
+ * players can then find their way with a lookup per move instead of solving
+ * the maze each. The wave goes over the {@link MazeGraph} of the maze,
+ * backwards : a cell is reached from its neighbour if the passage is open on
+ * the side of the cell (see {@link AStar}), whatever the side of the
+ * neighbour says.
+ *
+ * The field of a maze is kept by {@link #of(MazeContainer)} and computed again
+ * once the maze has changed (see {@link MazeContainer#getRevision()}).
+ *
+ * @version 1.2
+ */
+public class FlowField {
+	// The fields already computed, dropped with their maze as a field only holds a weak reference to it
+	private static final Map<MazeContainer, FlowField> CACHE = new WeakHashMap<>();
+
+	private final WeakReference<MazeContainer> maze;
+	private final int width, height;
+
+	// The revision of the maze the field was computed from
+	private final int revision;
+
+	// The index of the exit
+	private final int exit;
+
+	// The distance to the exit, -1 if it cannot be reached
+	private final int[] distance;
+
+	// The next move towards the exit (a Direction ordinal), -1 at the exit and where it cannot be reached
+	private final byte[] next;
+
+	/**
+	 * @param mc The maze
+	 * @return The flow field of the maze, computed again only if the maze has
+	 *         changed since the last call
+	 */
+	public static FlowField of(MazeContainer mc) {
+		synchronized (CACHE) {
+			FlowField field = CACHE.get(mc);
+			if (field == null || !field.isValid()) {
+				field = new FlowField(mc);
+				CACHE.put(mc, field);
+			}
+			return field;
+		}
+	}
+
+	/**
+	 * Computes the field of a maze, see {@link #of(MazeContainer)} to keep it
+	 * @param mc The maze
+	 * @throws IllegalStateException if the maze has no exit
+	 */
+	public FlowField(MazeContainer mc) {
+		maze = new WeakReference<>(mc);
+		width = mc.nCellsX;
+		height = mc.nCellsY;
+		revision = mc.getRevision();
+		exit = mc.getExit();
+		if (exit < 0)
+			throw new IllegalStateException("The maze has no exit");
+
+		int n = width * height;
+		distance = new int[n];
+		next = new byte[n];
+		Arrays.fill(distance, -1);
+		Arrays.fill(next, (byte) -1);
+
+		// The wave, every cell is queued once
+		MazeGraph graph = MazeGraph.of(mc);
+		int[] offsets = graph.offsets, neighbors = graph.neighbors;
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		queue[tail++] = exit;
+		distance[exit] = 0;
+
+		while (head < tail) {
+			int cell = queue[head++];
+			int x = cell % width, y = cell / width;
+
+			// The neighbours having an edge towards the cell
+			for (int dir = 0; dir < 4; dir++) {
+				int nx = x + DX[dir], ny = y + DY[dir];
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+					continue;
+
+				int nb = ny * width + nx;
+				if (distance[nb] < 0 && hasEdge(offsets, neighbors, nb, cell)) {
+					distance[nb] = distance[cell] + 1;
+					next[nb] = direction(nb, cell);
+					queue[tail++] = nb;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return True if the graph has an edge from a node to another
+	 */
+	private static boolean hasEdge(int[] offsets, int[] neighbors, int from, int to) {
+		for (int e = offsets[from]; e < offsets[from + 1]; e++)
+			if (neighbors[e] == to)
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return The direction (its ordinal) of a move between two neighbouring
+	 *         cells
+	 */
+	private byte direction(int from, int to) {
+		int d = to - from;
+		if (d == -width)
+			return 0;
+		if (d == width)
+			return 1;
+		return (byte) (d == 1 ? 2 : 3);
+	}
+
+	/**
+	 * @return True if the maze has not changed since the field was computed
+	 */
+	public boolean isValid() {
+		MazeContainer mc = maze.get();
+		return mc != null && mc.getRevision() == revision && mc.getExit() == exit;
+	}
+
+	/**
+	 * @return The number of moves from (x, y) to the exit, -1 if it cannot be
+	 *         reached
+	 */
+	public int distance(int x, int y) {
+		return distance[y * width + x];
+	}
+
+	/**
+	 * @return The move to do from (x, y) towards the exit, null at the exit or
+	 *         if it cannot be reached
+	 */
+	public Direction next(int x, int y) {
+		int dir = next[y * width + x];
+		return dir < 0 ? null : DIRECTIONS[dir];
+	}
+
+	/**
+	 * @param cell A cell, see {@link MazeContainer#index(int, int)}
+	 * @return The cell after it on the way to the exit, the same cell at the
+	 *         exit or if it cannot be reached
+	 */
+	public int nextCell(int cell) {
+		int dir = next[cell];
+		return dir < 0 ? cell : cell + DY[dir] * width + DX[dir];
+	}
+
+	/**
+	 * @return The path from (x, y) to the exit, null if it cannot be reached
+	 */
+	public Path path(int x, int y) {
+		int cell = y * width + x;
+		if (distance[cell] < 0)
+			return null;
+
+		int[] cells = new int[distance[cell] + 1];
+		for (int i = 0; i < cells.length; i++, cell = nextCell(cell))
+			cells[i] = cell;
+		return new Path(width, height, cells);
+	}
+
+	// Directions, in the order north, south, east, west, as the Direction values
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { -1, 1, 0, 0 };
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Moves many players towards the exit, using the field, and compares with
+	 * solving the maze for a few of them
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int players = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+
+		long start = System.nanoTime();
+		FlowField field = FlowField.of(mc);
+		System.out.println(String.format("%dx%d, field computed in %.1f ms", size, size,
+				(System.nanoTime() - start) / 1e6));
+
+		Random rnd = new Random(1);
+		int[] position = new int[players];
+		for (int p = 0; p < players; p++)
+			position[p] = rnd.nextInt(size * size);
+
+		// Everybody moves once per turn until all the players are out
+		start = System.nanoTime();
+		long moves = 0;
+		for (boolean moving = true; moving;) {
+			moving = false;
+			for (int p = 0; p < players; p++) {
+				int cell = field.nextCell(position[p]);
+				if (cell != position[p]) {
+					position[p] = cell;
+					moves++;
+					moving = true;
+				}
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d players out after %d moves, in %.3f s", players, moves, seconds));
+
+		AStar alg = new AStar(mc);
+		int solved = 20;
+		start = System.nanoTime();
+		for (int p = 0; p < solved; p++)
+			alg.find(rnd.nextInt(size), rnd.nextInt(size), AStar.Mode.BIDIRECTIONAL);
+		seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("A solve per player : %.1f ms each", seconds * 1e3 / solved));
+
+		// Opening a wall invalidates the field
+		int x = 0;
+		while (!mc.wallEast(x, 0))
+			x++;
+		mc.carve(x, 0, MazeContainer.OPEN_EAST);
+		mc.carve(x + 1, 0, MazeContainer.OPEN_WEST);
+		System.out.println("Field still valid after a change : " + field.isValid() + ", recomputed : "
+				+ (FlowField.of(mc) != field));
+	}
+}
@@ -0,0 +1,623 @@
+package maze.solvers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import maze.data.MazeContainer;
+
+/**
+ * Hierarchical path finding (HPA*) for very large mazes
+ *
+ * The maze is cut in square clusters. The entrances of a cluster are its
+ * cells with a passage leading out of it, and the distances between the
+ * entrances of a cluster, inside the cluster, are computed once. A query
+ * only looks at the cells of the clusters of the start and of the goal : A*
+ * runs on the graph of the entrances, whose edges are the passages between
+ * two clusters and the distances inside a cluster. Every passage crossing a
+ * border being an entrance, the length found is the one of the shortest path.
+ * The cells of the path are then found again only in the clusters it goes
+ * through.
+ *
+ * Only the pairs of entrances connected inside their cluster are kept, in a
+ * table per cluster : the first pair of each entrance, then one int per pair,
+ * the other entrance in the high bits and the distance in the 16 low bits.
+ *
+ * When walls change, see {@link #cellChanged(int)}, only their clusters are
+ * built again, at the next query. The index can be saved with
+ * {@link #write(OutputStream)} and loaded for the same maze with
+ * {@link #read(MazeContainer, InputStream)}.
+ *
+ * The passages must be open on both sides. An index must not be shared
+ * between threads.
+ *
+ * @version 1.0
+ */
+public class HierarchicalIndex {
+	public static final int MAGIC = 0x48504149; // "HPAI"
+	public static final int VERSION = 1;
+
+	// The side of a cluster, by default and at most (the distances are kept in 16 bits)
+	public static final int DEFAULT_SIZE = 32;
+	public static final int MAX_SIZE = 128;
+
+	// The distance of the goal when it cannot be reached
+	private static final int INF = Integer.MAX_VALUE;
+
+	private final MazeContainer maze;
+	private final int width, height;
+
+	// The side of a cluster, and the number of clusters on each axis
+	private final int size, clustersX, clustersY;
+
+	// The entrances of each cluster, as positions in the cluster, in increasing order
+	private final short[][] entrances;
+
+	// The pairs of entrances of each cluster, see above
+	private final int[][] tables;
+
+	// The clusters to build again before the next query
+	private final boolean[] dirty;
+	private boolean changed;
+
+	// The number of the first entrance of each cluster, and the cluster of each entrance, for the searches
+	private int[] base;
+	private int[] clusterOf;
+
+	// The labels and the heap of the searches
+	private final SolverContext context = new SolverContext();
+
+	// The waves inside a cluster
+	private final int[] local, queue;
+
+	// The distances to the goal from the entrances of its cluster
+	private int[] goalCost = new int[0];
+
+	// The node the goal was reached from by the last search, the start if the path stays in its cluster
+	private int bestNode;
+
+	// The number of entrances expanded by the last search
+	long expanded;
+
+	/**
+	 * Builds the index with clusters of {@value #DEFAULT_SIZE} cells
+	 * @param mc The maze
+	 */
+	public HierarchicalIndex(MazeContainer mc) {
+		this(mc, DEFAULT_SIZE);
+	}
+
+	/**
+	 * @param mc The maze
+	 * @param size The side of a cluster
+	 */
+	public HierarchicalIndex(MazeContainer mc, int size) {
+		this(mc, size, true);
+	}
+
+	private HierarchicalIndex(MazeContainer mc, int size, boolean build) {
+		if (size < 2 || size > MAX_SIZE)
+			throw new IllegalArgumentException("The side of a cluster must be between 2 and " + MAX_SIZE);
+
+		maze = mc;
+		width = mc.nCellsX;
+		height = mc.nCellsY;
+		this.size = size;
+		clustersX = (width + size - 1) / size;
+		clustersY = (height + size - 1) / size;
+
+		int clusters = clustersX * clustersY;
+		entrances = new short[clusters][];
+		tables = new int[clusters][];
+		dirty = new boolean[clusters];
+		local = new int[size * size];
+		queue = new int[size * size];
+
+		if (build) {
+			for (int c = 0; c < clusters; c++)
+				build(c);
+			number();
+		}
+	}
+
+	/**
+	 * Finds the entrances of a cluster and the distances between them
+	 */
+	private void build(int c) {
+		int x0 = (c % clustersX) * size, y0 = (c / clustersX) * size;
+		int x1 = Math.min(width, x0 + size), y1 = Math.min(height, y0 + size);
+
+		// The cells of the border with a passage out of the cluster, row by row
+		IntList found = new IntList();
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0; x < x1; x++) {
+				if (x != x0 && x != x1 - 1 && y != y0 && y != y1 - 1)
+					continue;
+
+				int passages = maze.getCell(y * width + x);
+				for (int dir = 0; dir < 4; dir++) {
+					int nx = x + DX[dir], ny = y + DY[dir];
+					if ((passages & OPEN[dir]) != 0 && nx >= 0 && nx < width && ny >= 0 && ny < height
+							&& (nx < x0 || nx >= x1 || ny < y0 || ny >= y1)) {
+						found.add((y - y0) * size + x - x0);
+						break;
+					}
+				}
+			}
+		}
+
+		int k = found.size;
+		short[] ent = new short[k];
+		for (int i = 0; i < k; i++)
+			ent[i] = (short) found.get(i);
+
+		// A wave from each entrance gives its distance to the others
+		IntList pairs = new IntList();
+		int[] rows = new int[k + 1];
+		for (int i = 0; i < k; i++) {
+			rows[i] = pairs.size;
+			wave(c, cell(c, ent[i]), -1);
+			for (int j = 0; j < k; j++)
+				if (j != i && local[ent[j]] >= 0)
+					pairs.add(j << 16 | local[ent[j]]);
+		}
+		rows[k] = pairs.size;
+
+		int[] table = new int[k + 1 + pairs.size];
+		for (int i = 0; i <= k; i++)
+			table[i] = k + 1 + rows[i];
+		System.arraycopy(pairs.data, 0, table, k + 1, pairs.size);
+
+		entrances[c] = ent;
+		tables[c] = table;
+		dirty[c] = false;
+	}
+
+	/**
+	 * Numbers the entrances of all the clusters, one after the other
+	 */
+	private void number() {
+		int clusters = entrances.length;
+		base = new int[clusters + 1];
+		for (int c = 0; c < clusters; c++)
+			base[c + 1] = base[c] + entrances[c].length;
+
+		clusterOf = new int[base[clusters]];
+		for (int c = 0; c < clusters; c++)
+			Arrays.fill(clusterOf, base[c], base[c + 1], c);
+		changed = false;
+	}
+
+	/**
+	 * Tells that the walls of a cell have changed, its cluster is built again
+	 * before the next query. When a wall is changed, both cells must be given.
+	 * @param cell The cell, see {@link MazeContainer#index(int, int)}
+	 */
+	public void cellChanged(int cell) {
+		int c = cluster(cell);
+		dirty[c] = true;
+		changed = true;
+	}
+
+	/**
+	 * Builds again the clusters that have changed
+	 */
+	private void refresh() {
+		if (!changed)
+			return;
+		for (int c = 0; c < dirty.length; c++)
+			if (dirty[c])
+				build(c);
+		number();
+	}
+
+	/**
+	 * Lee wave inside a cluster, the distances are left in local
+	 * @param c The cluster
+	 * @param from The cell where the wave starts
+	 * @param stop A cell where the wave stops, -1 to label the whole cluster
+	 */
+	private void wave(int c, int from, int stop) {
+		int x0 = (c % clustersX) * size, y0 = (c / clustersX) * size;
+		int x1 = Math.min(width, x0 + size), y1 = Math.min(height, y0 + size);
+
+		Arrays.fill(local, -1);
+		int head = 0, tail = 0;
+		int start = (from / width - y0) * size + from % width - x0;
+		queue[tail++] = start;
+		local[start] = 0;
+
+		while (head < tail) {
+			int pos = queue[head++];
+			int x = x0 + pos % size, y = y0 + pos / size;
+			if (y * width + x == stop)
+				return;
+
+			int passages = maze.getCell(y * width + x);
+			for (int dir = 0; dir < 4; dir++) {
+				if ((passages & OPEN[dir]) == 0)
+					continue;
+
+				int nx = x + DX[dir], ny = y + DY[dir];
+				if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1)
+					continue;
+
+				int next = (ny - y0) * size + nx - x0;
+				if (local[next] < 0) {
+					local[next] = local[pos] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the cells of the shortest path from a to b inside a cluster, a
+	 * excluded
+	 */
+	private void trace(int c, int a, int b, IntList out) {
+		int x0 = (c % clustersX) * size, y0 = (c / clustersX) * size;
+		int x1 = Math.min(width, x0 + size), y1 = Math.min(height, y0 + size);
+
+		// A wave from b, then down the distances from a
+		wave(c, b, a);
+		int x = a % width, y = a / width;
+		for (int d = local[(y - y0) * size + x - x0]; d > 0; d--) {
+			int passages = maze.getCell(y * width + x);
+			for (int dir = 0; dir < 4; dir++) {
+				int nx = x + DX[dir], ny = y + DY[dir];
+				if ((passages & OPEN[dir]) != 0 && nx >= x0 && nx < x1 && ny >= y0 && ny < y1
+						&& local[(ny - y0) * size + nx - x0] == d - 1) {
+					x = nx;
+					y = ny;
+					break;
+				}
+			}
+			out.add(y * width + x);
+		}
+	}
+
+	/**
+	 * @param from A cell, see {@link MazeContainer#index(int, int)}
+	 * @param to Another cell
+	 * @return The number of steps of the shortest path between both cells, -1
+	 *         if there is none
+	 */
+	public int distance(int from, int to) {
+		return search(from, to);
+	}
+
+	/**
+	 * @param from The first cell, see {@link MazeContainer#index(int, int)}
+	 * @param to The last cell
+	 * @return The cells of the shortest path, both included, null if there is
+	 *         none
+	 */
+	public int[] path(int from, int to) {
+		if (search(from, to) < 0)
+			return null;
+
+		IntList out = new IntList();
+		out.add(from);
+		int start = base[entrances.length];
+		if (bestNode == start) {
+			trace(cluster(from), from, to, out);
+			return out.toArray();
+		}
+
+		// The entrances crossed, backwards from the last one
+		IntList nodes = new IntList();
+		for (int node = bestNode; node != start; node = context.parent[node])
+			nodes.add(node);
+
+		// In the cluster of the start, then from an entrance to the next one, then in the cluster of the goal
+		int last = nodes.get(nodes.size - 1);
+		trace(cluster(from), from, cell(last), out);
+		for (int i = nodes.size - 2; i >= 0; i--) {
+			int node = nodes.get(i), c = clusterOf[node];
+			if (clusterOf[last] == c)
+				trace(c, cell(last), cell(node), out);
+			else
+				out.add(cell(node));
+			last = node;
+		}
+		trace(cluster(to), cell(last), to, out);
+		return out.toArray();
+	}
+
+	/**
+	 * A* on the entrances. The entrances of the cluster of the start are
+	 * opened with their distance to the start, and the ones of the cluster of
+	 * the goal give a way to the goal with their distance to it. The search
+	 * stops when no open entrance can give a shorter way.
+	 * @return The cost of the shortest path, -1 if there is none
+	 */
+	private int search(int from, int to) {
+		refresh();
+		int nodes = base[entrances.length], start = nodes;
+		int cs = cluster(from), ct = cluster(to);
+
+		context.begin(nodes + 1);
+		int[] g = context.label;
+		IndexedMinHeap open = context.heap();
+		expanded = 0;
+		bestNode = start;
+		int best = INF;
+
+		// From the start, inside its cluster
+		wave(cs, from, -1);
+		short[] ent = entrances[cs];
+		for (int i = 0; i < ent.length; i++) {
+			if (local[ent[i]] >= 0) {
+				int node = base[cs] + i;
+				context.setLabel(node, local[ent[i]]);
+				context.parent[node] = start;
+				open.put(node, key(local[ent[i]], node, to));
+			}
+		}
+		if (cs == ct && local[position(ct, to)] >= 0) {
+			// The goal is in the same cluster, the path may stay in it
+			best = local[position(ct, to)];
+		}
+
+		// To the goal, inside its cluster
+		wave(ct, to, -1);
+		ent = entrances[ct];
+		if (goalCost.length < ent.length)
+			goalCost = new int[ent.length];
+		for (int i = 0; i < ent.length; i++)
+			goalCost[i] = local[ent[i]];
+
+		while (!open.isEmpty() && (open.minKey() >>> 32) < best) {
+			int node = open.poll();
+			context.close(node);
+			expanded++;
+
+			int c = clusterOf[node], i = node - base[c];
+			if (c == ct && goalCost[i] >= 0 && g[node] + goalCost[i] < best) {
+				best = g[node] + goalCost[i];
+				bestNode = node;
+			}
+
+			// The other entrances of the cluster
+			int[] table = tables[c];
+			for (int p = table[i]; p < table[i + 1]; p++)
+				relax(node, base[c] + (table[p] >>> 16), g[node] + (table[p] & 0xFFFF), to);
+
+			// The passages out of the cluster
+			int cell = cell(node), x = cell % width, y = cell / width;
+			int passages = maze.getCell(cell);
+			for (int dir = 0; dir < 4; dir++) {
+				int nx = x + DX[dir], ny = y + DY[dir];
+				if ((passages & OPEN[dir]) == 0 || nx < 0 || nx >= width || ny < 0 || ny >= height)
+					continue;
+
+				int next = ny * width + nx, cn = cluster(next);
+				if (cn == c)
+					continue;
+				int j = Arrays.binarySearch(entrances[cn], (short) position(cn, next));
+				if (j >= 0)
+					relax(node, base[cn] + j, g[node] + 1, to);
+			}
+		}
+		return best == INF ? -1 : best;
+	}
+
+	private void relax(int node, int next, int cost, int to) {
+		if (context.isClosed(next))
+			return;
+		IndexedMinHeap open = context.heap;
+		if (!open.contains(next) || cost < context.label[next]) {
+			context.setLabel(next, cost);
+			context.parent[next] = node;
+			open.put(next, key(cost, next, to));
+		}
+	}
+
+	/**
+	 * @return The key of an entrance in the open heap, as for {@link AStar}
+	 */
+	private long key(int g, int node, int to) {
+		int cell = cell(node);
+		int h = Math.abs(cell % width - to % width) + Math.abs(cell / width - to / width);
+		return ((long) (g + h) << 32) | (Integer.MAX_VALUE - g);
+	}
+
+	private int cluster(int cell) {
+		return (cell / width / size) * clustersX + cell % width / size;
+	}
+
+	/**
+	 * @return The position of a cell in its cluster
+	 */
+	private int position(int c, int cell) {
+		return (cell / width - (c / clustersX) * size) * size + cell % width - (c % clustersX) * size;
+	}
+
+	/**
+	 * @return The cell at a position in a cluster
+	 */
+	private int cell(int c, int pos) {
+		return ((c / clustersX) * size + pos / size) * width + (c % clustersX) * size + pos % size;
+	}
+
+	/**
+	 * @return The cell of an entrance
+	 */
+	private int cell(int node) {
+		int c = clusterOf[node];
+		return cell(c, entrances[c][node - base[c]]);
+	}
+
+	/**
+	 * @return The number of entrances of all the clusters
+	 */
+	public int entrances() {
+		refresh();
+		return base[entrances.length];
+	}
+
+	/**
+	 * @return The size of the index, in bytes, without the headers of the
+	 *         arrays
+	 */
+	public long bytes() {
+		long bytes = 4L * (base.length + clusterOf.length);
+		for (int c = 0; c < entrances.length; c++)
+			bytes += 2L * entrances[c].length + 4L * tables[c].length;
+		return bytes;
+	}
+
+	/**
+	 * Saves the index : a header (magic number, version, width and height of
+	 * the maze, side of a cluster) then, for each cluster, its number of
+	 * entrances, their positions, the length of its table and the table
+	 * @param out The stream, not closed
+	 */
+	public void write(OutputStream out) throws IOException {
+		refresh();
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(width);
+		data.writeInt(height);
+		data.writeInt(size);
+
+		for (int c = 0; c < entrances.length; c++) {
+			data.writeInt(entrances[c].length);
+			for (short pos : entrances[c])
+				data.writeShort(pos);
+			data.writeInt(tables[c].length);
+			for (int v : tables[c])
+				data.writeInt(v);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Loads an index saved by {@link #write(OutputStream)}
+	 * @param mc The maze the index was built for
+	 * @param in The stream, not closed
+	 * @return The index
+	 * @throws IOException if the stream does not hold an index of this maze
+	 */
+	public static HierarchicalIndex read(MazeContainer mc, InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC)
+			throw new IOException("Not a hierarchical index");
+		int version = data.readInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported hierarchical index version " + version);
+		if (data.readInt() != mc.nCellsX || data.readInt() != mc.nCellsY)
+			throw new IOException("The index was built for a maze of another size");
+
+		int size = data.readInt();
+		if (size < 2 || size > MAX_SIZE)
+			throw new IOException("Corrupted hierarchical index");
+		HierarchicalIndex index = new HierarchicalIndex(mc, size, false);
+
+		for (int c = 0; c < index.entrances.length; c++) {
+			int k = data.readInt();
+			if (k < 0 || k > size * size)
+				throw new IOException("Corrupted hierarchical index");
+			short[] ent = new short[k];
+			for (int i = 0; i < k; i++)
+				ent[i] = data.readShort();
+
+			int length = data.readInt();
+			if (length < k + 1)
+				throw new IOException("Corrupted hierarchical index");
+			int[] table = new int[length];
+			for (int i = 0; i < length; i++)
+				table[i] = data.readInt();
+
+			index.entrances[c] = ent;
+			index.tables[c] = table;
+		}
+		index.number();
+		return index;
+	}
+
+	// Directions, in the order north, south, east, west
+	private static final int[] OPEN = { MazeContainer.OPEN_NORTH, MazeContainer.OPEN_SOUTH,
+			MazeContainer.OPEN_EAST, MazeContainer.OPEN_WEST };
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { -1, 1, 0, 0 };
+
+	/**
+	 * Builds the index of a maze, compares random queries with A* on the
+	 * cells, then changes a wall and saves the index
+	 */
+	public static void main(String[] args) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int cluster = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SIZE;
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+		Random rnd = new Random(1);
+
+		long start = System.nanoTime();
+		HierarchicalIndex index = new HierarchicalIndex(mc, cluster);
+		System.out.println(String.format("%dx%d, clusters of %d : %d entrances, built in %.0f ms, %.1f MB", size,
+				size, cluster, index.entrances(), (System.nanoTime() - start) / 1e6, index.bytes() / 1e6));
+
+		int[] pairs = new int[2 * queries];
+		for (int i = 0; i < pairs.length; i++)
+			pairs[i] = rnd.nextInt(size * size);
+
+		SolverContext context = new SolverContext();
+		MazeGraph graph = MazeGraph.of(mc);
+		long cellsTime = 0, indexTime = 0, cellsExpanded = 0, indexExpanded = 0;
+		int wrong = 0;
+		for (int q = -1; q < queries; q++) {
+			// The first query warms up
+			int a = pairs[Math.max(0, 2 * q)], b = pairs[Math.max(0, 2 * q) + 1];
+
+			start = System.nanoTime();
+			int expected = AStar.solve(graph, a, b, AStar.Mode.ASTAR, context);
+			long t1 = System.nanoTime();
+			int length = index.path(a, b).length - 1;
+			long t2 = System.nanoTime();
+
+			if (q >= 0) {
+				cellsTime += t1 - start;
+				indexTime += t2 - t1;
+				cellsExpanded += context.expanded;
+				indexExpanded += index.expanded;
+				if (length != expected)
+					wrong++;
+			}
+		}
+		System.out.println(String.format(
+				"A* on the cells : %.2f ms, %d cells expanded ; index : %.2f ms, %d entrances expanded%s",
+				cellsTime / 1e6 / queries, cellsExpanded / queries, indexTime / 1e6 / queries,
+				indexExpanded / queries, wrong == 0 ? "" : " (" + wrong + " wrong lengths !)"));
+
+		// Opens a wall, only its clusters are built again
+		int x = 0;
+		while (!mc.wallEast(x, size / 2))
+			x++;
+		mc.carve(x, size / 2, MazeContainer.OPEN_EAST);
+		mc.carve(x + 1, size / 2, MazeContainer.OPEN_WEST);
+		index.cellChanged(mc.index(x, size / 2));
+		index.cellChanged(mc.index(x + 1, size / 2));
+		start = System.nanoTime();
+		int entrances = index.entrances();
+		System.out.println(String.format("A wall opened : clusters built again in %.2f ms, %d entrances",
+				(System.nanoTime() - start) / 1e6, entrances));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.write(bytes);
+		HierarchicalIndex loaded = read(mc, new ByteArrayInputStream(bytes.toByteArray()));
+		System.out.println(String.format("Saved in %.1f MB, loaded index gives %d steps for %d",
+				bytes.size() / 1e6, loaded.distance(pairs[0], pairs[1]), index.distance(pairs[0], pairs[1])));
+	}
+}
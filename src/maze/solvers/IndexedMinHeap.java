@@ -0,0 +1,164 @@
+package maze.solvers;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int ids in [0, capacity), each with a long key. The
+ * position of every id in the heap is kept so that keys can be decreased
+ * (or changed) in O(log n) without boxing anything.
+ *
+ * @version 1.0
+ */
+class IndexedMinHeap {
+	private int[] heap;
+	private long[] keys;
+	private int[] position;
+	private int size;
+
+	IndexedMinHeap(int capacity) {
+		heap = new int[Math.min(capacity, 1024)];
+		keys = new long[heap.length];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean contains(int id) {
+		return position[id] >= 0;
+	}
+
+	/**
+	 * @return The id with the smallest key, the heap must not be empty
+	 */
+	int peek() {
+		return heap[0];
+	}
+
+	/**
+	 * @return The smallest key, the heap must not be empty
+	 */
+	long minKey() {
+		return keys[0];
+	}
+
+	/**
+	 * @return The key of an id in the heap
+	 */
+	long key(int id) {
+		return keys[position[id]];
+	}
+
+	/**
+	 * Inserts an id or changes its key if it is already in the heap
+	 */
+	void put(int id, long key) {
+		int i = position[id];
+		if (i < 0) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			i = size++;
+			heap[i] = id;
+			keys[i] = key;
+			position[id] = i;
+			up(i);
+		} else if (key < keys[i]) {
+			keys[i] = key;
+			up(i);
+		} else {
+			keys[i] = key;
+			down(i);
+		}
+	}
+
+	/**
+	 * Removes the id with the smallest key
+	 * @return The id
+	 */
+	int poll() {
+		int id = heap[0];
+		removeAt(0);
+		return id;
+	}
+
+	/**
+	 * Removes an id if it is in the heap
+	 */
+	void remove(int id) {
+		int i = position[id];
+		if (i >= 0)
+			removeAt(i);
+	}
+
+	/**
+	 * Empties the heap, in O(size)
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++)
+			position[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void removeAt(int i) {
+		position[heap[i]] = -1;
+		size--;
+		if (i == size)
+			return;
+
+		int id = heap[size];
+		heap[i] = id;
+		keys[i] = keys[size];
+		position[id] = i;
+		up(i);
+		if (position[id] == i)
+			down(i);
+	}
+
+	private void up(int i) {
+		int id = heap[i];
+		long key = keys[i];
+		while (i > 0) {
+			int p = (i - 1) >>> 1;
+			if (keys[p] <= key)
+				break;
+			move(p, i);
+			i = p;
+		}
+		heap[i] = id;
+		keys[i] = key;
+		position[id] = i;
+	}
+
+	private void down(int i) {
+		int id = heap[i];
+		long key = keys[i];
+		while (true) {
+			int c = 2 * i + 1;
+			if (c >= size)
+				break;
+			if (c + 1 < size && keys[c + 1] < keys[c])
+				c++;
+			if (keys[c] >= key)
+				break;
+			move(c, i);
+			i = c;
+		}
+		heap[i] = id;
+		keys[i] = key;
+		position[id] = i;
+	}
+
+	private void move(int from, int to) {
+		heap[to] = heap[from];
+		keys[to] = keys[from];
+		position[heap[to]] = to;
+	}
+}
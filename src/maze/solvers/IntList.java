@@ -0,0 +1,39 @@
+package maze.solvers;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, to avoid boxing in the solvers
+ *
+ * @version 1.0
+ */
+class IntList {
+	int[] data;
+	int size;
+
+	IntList() {
+		this(64);
+	}
+
+	IntList(int capacity) {
+		data = new int[Math.max(capacity, 1)];
+	}
+
+	void add(int v) {
+		if (size == data.length)
+			data = Arrays.copyOf(data, size * 2);
+		data[size++] = v;
+	}
+
+	int get(int i) {
+		return data[i];
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+}
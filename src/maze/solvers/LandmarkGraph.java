@@ -0,0 +1,337 @@
+package maze.solvers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+import maze.data.MazeContainer;
+
+/**
+ * A graph with landmarks, giving A* a much better lower bound than the
+ * Manhattan distance (ALT : A*, landmarks and triangle inequality)
+ *
+ * In a maze the real distance between two cells is often ten or a hundred
+ * times their Manhattan distance, A* then expands about as many cells as a
+ * wave. The distances from a few landmark cells to every cell are computed
+ * once : for any landmark L, d(a, b) >= d(L, b) - d(L, a) and
+ * d(a, b) >= d(a, L) - d(b, L), and the largest of these bounds is used. The
+ * landmarks are chosen far from each other, each one being the cell farthest
+ * from the ones already chosen.
+ *
+ * When every edge has a reverse edge of the same cost, d(a, L) = d(L, a) and
+ * only the distances from the landmarks are kept, the bound being
+ * |d(L, a) - d(L, b)|. Otherwise (a weighted maze, whose edges cost the cell
+ * they enter) the distances to the landmarks are kept as well.
+ *
+ * The distances are kept cell by cell, the ones of the k landmarks next to
+ * each other so that a bound reads a single cache line per cell, as 16-bit
+ * values when they fit (2k bytes per cell, twice that with the distances to
+ * the landmarks) and as ints otherwise. See {@link AStar.Mode#ALT}.
+ *
+ * @version 1.2
+ */
+public class LandmarkGraph extends MazeGraph {
+	// The number of landmarks of the graphs of the mazes
+	public static final int DEFAULT_LANDMARKS = 8;
+
+	// The graphs already built, dropped with their maze as the view only holds the weak reference of its graph
+	private static final Map<MazeContainer, LandmarkGraph> CACHE = new WeakHashMap<>();
+
+	// The landmarks
+	private final int[] landmarks;
+
+	// The distance from each landmark to each node at node * stride + landmark, then from the node to
+	// each landmark at + k if the edges are not symmetric, -1 if it cannot be reached
+	private final short[] small;
+	private final int[] large;
+	private final int stride;
+
+	/**
+	 * @param mc The maze
+	 * @return The graph of the maze with {@value #DEFAULT_LANDMARKS}
+	 *         landmarks, built again only if the maze has changed since the
+	 *         last call
+	 */
+	public static LandmarkGraph of(MazeContainer mc) {
+		synchronized (CACHE) {
+			LandmarkGraph graph = CACHE.get(mc);
+			if (graph == null || !graph.isValid()) {
+				graph = new LandmarkGraph(MazeGraph.of(mc), DEFAULT_LANDMARKS);
+				CACHE.put(mc, graph);
+			}
+			return graph;
+		}
+	}
+
+	/**
+	 * Chooses the landmarks and computes their distances
+	 * @param graph The graph, whose arrays and weak reference to the maze are
+	 *            shared
+	 * @param count The number of landmarks
+	 */
+	public LandmarkGraph(MazeGraph graph, int count) {
+		super(graph);
+		int n = nodes, k = Math.min(count, n);
+		landmarks = new int[k];
+
+		// The reversed edges, to go to the landmarks, if they differ
+		int[][] reverse = isSymmetric(true) ? null : reverse();
+		stride = reverse == null ? k : 2 * k;
+
+		int[] closest = new int[n];
+		Arrays.fill(closest, Integer.MAX_VALUE);
+
+		// As 16-bit values until a distance does not fit
+		short[] shorts = new short[n * stride];
+		int[] ints = null;
+
+		// The first landmark is the farthest node from node 0, then the farthest from all the landmarks
+		int next = farthest(distances(0, offsets, neighbors, weights), closest);
+		for (int l = 0; l < k; l++) {
+			landmarks[l] = next;
+			for (int column = l; column < stride; column += k) {
+				int[] distance = column == l ? distances(next, offsets, neighbors, weights)
+						: distances(next, reverse[0], reverse[1], reverse[2]);
+
+				for (int v = 0; v < n; v++) {
+					int d = distance[v];
+					if (column == l && d >= 0 && d < closest[v])
+						closest[v] = d;
+
+					if (ints == null && d >= Short.MAX_VALUE) {
+						ints = new int[n * stride];
+						for (int i = 0; i < ints.length; i++)
+							ints[i] = shorts[i];
+						shorts = null;
+					}
+					if (ints == null)
+						shorts[v * stride + column] = (short) d;
+					else
+						ints[v * stride + column] = d;
+				}
+			}
+			next = farthest(null, closest);
+		}
+		small = shorts;
+		large = ints;
+	}
+
+	/**
+	 * @return The reversed edges, as offsets, neighbors and weights (null if
+	 *         the graph is not weighted)
+	 */
+	private int[][] reverse() {
+		int m = edges();
+		int[] first = new int[nodes + 1], ends = new int[m], costs = weights == null ? null : new int[m];
+		for (int e = 0; e < m; e++)
+			first[neighbors[e] + 1]++;
+		for (int v = 0; v < nodes; v++)
+			first[v + 1] += first[v];
+
+		int[] fill = Arrays.copyOf(first, nodes);
+		for (int a = 0; a < nodes; a++) {
+			for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+				int f = fill[neighbors[e]]++;
+				ends[f] = a;
+				if (costs != null)
+					costs[f] = weights[e];
+			}
+		}
+		return new int[][] { first, ends, costs };
+	}
+
+	/**
+	 * @param distances The distances from a node, or null
+	 * @param closest The distance to the closest landmark
+	 * @return The node farthest from the node (if distances is given) or
+	 *         from the landmarks, a node no landmark reaches coming first
+	 */
+	private int farthest(int[] distances, int[] closest) {
+		int best = 0;
+		for (int v = 1; v < nodes; v++) {
+			int d = distances != null ? distances[v] : closest[v];
+			int b = distances != null ? distances[best] : closest[best];
+			if (d > b)
+				best = v;
+		}
+		return best;
+	}
+
+	/**
+	 * @return The distance from a node to all the nodes along the given edges,
+	 *         -1 where it cannot be reached : a wave, or Dijkstra on a weighted
+	 *         graph
+	 */
+	private int[] distances(int source, int[] offsets, int[] neighbors, int[] weights) {
+		int[] distance = new int[nodes];
+		Arrays.fill(distance, -1);
+		distance[source] = 0;
+
+		if (weights == null) {
+			int[] queue = new int[nodes];
+			int head = 0, tail = 0;
+			queue[tail++] = source;
+			while (head < tail) {
+				int v = queue[head++];
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int w = neighbors[e];
+					if (distance[w] < 0) {
+						distance[w] = distance[v] + 1;
+						queue[tail++] = w;
+					}
+				}
+			}
+		} else {
+			IndexedMinHeap open = new IndexedMinHeap(nodes);
+			open.put(source, 0);
+			while (!open.isEmpty()) {
+				int v = open.poll();
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int w = neighbors[e], d = distance[v] + weights[e];
+					if (distance[w] < 0 || d < distance[w]) {
+						distance[w] = d;
+						open.put(w, d);
+					}
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * @return The number of landmarks
+	 */
+	public int landmarks() {
+		return landmarks.length;
+	}
+
+	/**
+	 * @return The node of a landmark
+	 */
+	public int landmark(int l) {
+		return landmarks[l];
+	}
+
+	/**
+	 * @return The distance from a landmark to a node, -1 if it cannot be
+	 *         reached
+	 */
+	public int distance(int l, int node) {
+		return value(node * stride + l);
+	}
+
+	/**
+	 * @return The distance from a node to a landmark, -1 if it cannot be
+	 *         reached
+	 */
+	public int distanceTo(int l, int node) {
+		return value(node * stride + (stride - landmarks.length) + l);
+	}
+
+	private int value(int i) {
+		return small != null ? small[i] : large[i];
+	}
+
+	/**
+	 * The largest bound given by the landmarks, or the one of the graph if it
+	 * is larger. The columns of the distances from the landmarks give
+	 * d(L, b) - d(L, a), the ones of the distances to the landmarks
+	 * d(a, L) - d(b, L) : with symmetric edges they are the same columns, and
+	 * the bound is |d(L, a) - d(L, b)|.
+	 */
+	@Override
+	public int lowerBound(int a, int b) {
+		int k = landmarks.length, back = stride - k, best = super.lowerBound(a, b);
+		int pa = a * stride, pb = b * stride;
+		if (small != null) {
+			for (int l = 0; l < k; l++) {
+				int da = small[pa + l], db = small[pb + l];
+				if (da >= 0 && db >= 0 && db - da > best)
+					best = db - da;
+				da = small[pa + back + l];
+				db = small[pb + back + l];
+				if (da >= 0 && db >= 0 && da - db > best)
+					best = da - db;
+			}
+		} else {
+			for (int l = 0; l < k; l++) {
+				int da = large[pa + l], db = large[pb + l];
+				if (da >= 0 && db >= 0 && db - da > best)
+					best = db - da;
+				da = large[pa + back + l];
+				db = large[pb + back + l];
+				if (da >= 0 && db >= 0 && da - db > best)
+					best = da - db;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return The size of the arrays, with the distances, in bytes
+	 */
+	@Override
+	public long bytes() {
+		return super.bytes() + (small != null ? 2L * small.length : 4L * large.length);
+	}
+
+	/**
+	 * Compares A* with the Manhattan distance and with landmarks on mazes
+	 * with more and more loops
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int count = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_LANDMARKS;
+
+		for (int percent : new int[] { 0, 5, 20 }) {
+			MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+			Random rnd = new Random(1);
+
+			// Opens some of the walls between two cells
+			for (int y = 0; y < size - 1; y++)
+				for (int x = 0; x < size - 1; x++)
+					if (rnd.nextInt(100) < percent) {
+						mc.carve(x, y, MazeContainer.OPEN_EAST);
+						mc.carve(x + 1, y, MazeContainer.OPEN_WEST);
+					}
+
+			MazeGraph graph = MazeGraph.of(mc);
+			long start = System.nanoTime();
+			LandmarkGraph alt = new LandmarkGraph(graph, count);
+			double build = (System.nanoTime() - start) / 1e6;
+
+			SolverContext context = new SolverContext();
+			long plainTime = 0, altTime = 0, plainExpanded = 0, altExpanded = 0;
+			int wrong = 0;
+			for (int q = -1; q < queries; q++) {
+				// The first query warms up
+				int a = rnd.nextInt(size * size), b = rnd.nextInt(size * size);
+
+				start = System.nanoTime();
+				int expected = AStar.solve(graph, a, b, AStar.Mode.ASTAR, context);
+				long t1 = System.nanoTime();
+				long expanded = context.expanded;
+				int length = AStar.solve(alt, a, b, AStar.Mode.ASTAR, context);
+				long t2 = System.nanoTime();
+
+				if (q >= 0) {
+					plainTime += t1 - start;
+					altTime += t2 - t1;
+					plainExpanded += expanded;
+					altExpanded += context.expanded;
+					if (length != expected)
+						wrong++;
+				}
+			}
+
+			System.out.println(String.format("%dx%d, %d%% walls opened, %d landmarks built in %.0f ms (%.1f MB)",
+					size, size, percent, count, build, (alt.bytes() - graph.bytes()) / 1e6));
+			System.out.println(String.format(
+					"  Manhattan : %.2f ms, %d expanded ; landmarks : %.2f ms, %d expanded%s",
+					plainTime / 1e6 / queries, plainExpanded / queries, altTime / 1e6 / queries,
+					altExpanded / queries, wrong == 0 ? "" : " (" + wrong + " wrong lengths !)"));
+		}
+	}
+}
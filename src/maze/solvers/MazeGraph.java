@@ -0,0 +1,389 @@
+package maze.solvers;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import maze.data.MazeContainer;
+
+/**
+ * The passages of a maze as a graph, in compressed sparse row form
+ *
+ * The edges going out of node u are neighbors[offsets[u]] to
+ * neighbors[offsets[u + 1] - 1], with their cost at the same positions in
+ * weights (null when every edge costs 1). A search then reads the edges of a
+ * node as a few consecutive ints, instead of decoding the bits of a cell and
+ * computing the index of each neighbour.
+ *
+ * The graph of a maze is built in a single pass over its cells, the nodes
+ * being the cells (see {@link MazeContainer#index(int, int)}) and the edges
+ * of a cell its open passages, in the order north, south, east, west. It is
+ * kept by {@link #of(MazeContainer)} and built again once the maze has changed.
+ * Its weighted graph (see {@link #weighted(MazeContainer)}) has the same
+ * edges, each one costing the cost of the cell it enters.
+ * Any other graph (a maze with several levels, irregular cells...) can be
+ * given directly as arrays, the solvers only see the nodes and the edges.
+ *
+ * @version 1.4
+ */
+public class MazeGraph {
+	// The graphs already built, dropped with their maze as a graph only holds a weak reference to it
+	private static final Map<MazeContainer, MazeGraph> CACHE = new WeakHashMap<>();
+	private static final Map<MazeContainer, MazeGraph> WEIGHTED = new WeakHashMap<>();
+
+	// The number of nodes
+	public final int nodes;
+
+	// The edges of the nodes, one after the other
+	final int[] offsets, neighbors;
+
+	// The cost of each edge, null if they all cost 1
+	final int[] weights;
+
+	// The width of the grid the nodes are laid on, 0 if there is none
+	final int width;
+
+	// The smallest and largest costs of an edge
+	private final int minWeight, maxWeight;
+
+	// The maze the graph was built from, weakly so that the caches do not keep it, and its revision
+	private final WeakReference<MazeContainer> maze;
+	private final int revision;
+
+	/**
+	 * @param mc The maze
+	 * @return The graph of the maze, built again only if the maze has changed
+	 *         since the last call
+	 */
+	public static MazeGraph of(MazeContainer mc) {
+		synchronized (CACHE) {
+			MazeGraph graph = CACHE.get(mc);
+			if (graph == null || !graph.isValid()) {
+				graph = new MazeGraph(mc);
+				CACHE.put(mc, graph);
+			}
+			return graph;
+		}
+	}
+
+	/**
+	 * @param mc The maze
+	 * @return The graph of the maze whose edges cost the cost of the cell they
+	 *         enter (see {@link MazeContainer#getCost(int)}), built again only
+	 *         if the maze has changed since the last call. Going back and
+	 *         forth between two cells may not cost the same.
+	 */
+	public static MazeGraph weighted(MazeContainer mc) {
+		synchronized (WEIGHTED) {
+			MazeGraph graph = WEIGHTED.get(mc);
+			if (graph == null || !graph.isValid()) {
+				graph = new MazeGraph(mc, true);
+				WEIGHTED.put(mc, graph);
+			}
+			return graph;
+		}
+	}
+
+	/**
+	 * Builds the graph of a maze, see {@link #of(MazeContainer)} to keep it
+	 * @param mc The maze
+	 */
+	public MazeGraph(MazeContainer mc) {
+		this(mc, false);
+	}
+
+	/**
+	 * Builds the graph of a maze, see {@link #weighted(MazeContainer)} to keep
+	 * the weighted one
+	 * @param mc The maze
+	 * @param costs True if the edges cost the cost of the cell they enter,
+	 *            otherwise they all cost 1
+	 */
+	public MazeGraph(MazeContainer mc, boolean costs) {
+		maze = new WeakReference<>(mc);
+		revision = mc.getRevision();
+		width = mc.nCellsX;
+		nodes = width * mc.nCellsY;
+		offsets = new int[nodes + 1];
+
+		// A perfect maze has exactly 2 (n - 1) edges, more only with loops
+		int[] edges = new int[Math.max(4, 2 * nodes)];
+		int count = 0;
+
+		int height = mc.nCellsY;
+		for (int y = 0, cell = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, cell++) {
+				int passages = mc.getCell(cell);
+
+				if (count + 4 > edges.length)
+					edges = Arrays.copyOf(edges, edges.length + edges.length / 2);
+
+				// Passages out of the maze are ignored
+				if ((passages & MazeContainer.OPEN_NORTH) != 0 && y > 0)
+					edges[count++] = cell - width;
+				if ((passages & MazeContainer.OPEN_SOUTH) != 0 && y < height - 1)
+					edges[count++] = cell + width;
+				if ((passages & MazeContainer.OPEN_EAST) != 0 && x < width - 1)
+					edges[count++] = cell + 1;
+				if ((passages & MazeContainer.OPEN_WEST) != 0 && x > 0)
+					edges[count++] = cell - 1;
+				offsets[cell + 1] = count;
+			}
+		}
+		neighbors = edges;
+
+		// The costs, once the edges are known
+		int min = 1, max = 1;
+		if (costs && mc.hasCosts()) {
+			weights = new int[count];
+			min = MazeContainer.MAX_COST;
+			for (int e = 0; e < count; e++) {
+				weights[e] = mc.getCost(edges[e]);
+				min = Math.min(min, weights[e]);
+				max = Math.max(max, weights[e]);
+			}
+		} else {
+			weights = null;
+		}
+		minWeight = min;
+		maxWeight = max;
+	}
+
+	/**
+	 * A graph given as arrays, which are not copied. The edges may have a
+	 * single direction, but only A* can then solve the graph : the waves of
+	 * {@link AStar} and the landmarks of {@link LandmarkGraph} need every edge
+	 * to exist in both directions, see {@link #isSymmetric()}.
+	 * @param offsets The first edge of each node, then the number of edges
+	 *            (nodes + 1 values)
+	 * @param neighbors The end of each edge
+	 * @param weights The cost of each edge, at least 1, or null if they all
+	 *            cost 1
+	 */
+	public MazeGraph(int[] offsets, int[] neighbors, int[] weights) {
+		if (offsets.length == 0 || offsets[offsets.length - 1] > neighbors.length)
+			throw new IllegalArgumentException("The offsets do not match the edges");
+
+		this.nodes = offsets.length - 1;
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		this.weights = weights;
+		this.width = 0;
+		this.maze = null;
+		this.revision = 0;
+
+		int min = 1, max = 1;
+		if (weights != null) {
+			min = Integer.MAX_VALUE;
+			for (int e = 0; e < offsets[nodes]; e++) {
+				if (weights[e] < 1)
+					throw new IllegalArgumentException("The cost of an edge must be at least 1");
+				min = Math.min(min, weights[e]);
+				max = Math.max(max, weights[e]);
+			}
+		}
+		minWeight = min;
+		maxWeight = max;
+	}
+
+	/**
+	 * A view of another graph, sharing its arrays, for the subclasses giving
+	 * a better {@link #lowerBound(int, int)}
+	 * @param graph The graph
+	 */
+	protected MazeGraph(MazeGraph graph) {
+		this.nodes = graph.nodes;
+		this.offsets = graph.offsets;
+		this.neighbors = graph.neighbors;
+		this.weights = graph.weights;
+		this.width = graph.width;
+		this.minWeight = graph.minWeight;
+		this.maxWeight = graph.maxWeight;
+		this.maze = graph.maze;
+		this.revision = graph.revision;
+	}
+
+	/**
+	 * @return True if the maze has not changed since the graph was built, always
+	 *         true for a graph given as arrays
+	 */
+	public boolean isValid() {
+		if (maze == null)
+			return true;
+		MazeContainer mc = maze.get();
+		return mc != null && mc.getRevision() == revision;
+	}
+
+	/**
+	 * @return The number of edges
+	 */
+	public int edges() {
+		return offsets[nodes];
+	}
+
+	/**
+	 * @return The number of edges going out of a node
+	 */
+	public int degree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @param node A node
+	 * @param k An edge of the node, from 0 to {@link #degree(int)} - 1
+	 * @return The node at the end of the edge
+	 */
+	public int neighbor(int node, int k) {
+		return neighbors[offsets[node] + k];
+	}
+
+	/**
+	 * @param node A node
+	 * @param k An edge of the node, from 0 to {@link #degree(int)} - 1
+	 * @return The cost of the edge
+	 */
+	public int weight(int node, int k) {
+		return weights == null ? 1 : weights[offsets[node] + k];
+	}
+
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	/**
+	 * @return True if for each edge from a to b there is an edge from b to a,
+	 *         their costs may differ
+	 */
+	public boolean isSymmetric() {
+		return isSymmetric(false);
+	}
+
+	/**
+	 * @param costs True if the edges in both directions must also cost the
+	 *            same
+	 * @return True if for each edge from a to b there is an edge from b to a
+	 */
+	public boolean isSymmetric(boolean costs) {
+		for (int a = 0; a < nodes; a++) {
+			for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+				int b = neighbors[e];
+				boolean back = false;
+				for (int f = offsets[b]; f < offsets[b + 1] && !back; f++)
+					back = neighbors[f] == a && (!costs || weights == null || weights[f] == weights[e]);
+				if (!back)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The largest cost of an edge, 1 if the graph is not weighted
+	 */
+	public int maxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * A lower bound of the cost from a node to another, used by A*. On a
+	 * maze, it is the Manhattan distance times the smallest cost of an edge,
+	 * otherwise 0 (A* is then Dijkstra). Graphs whose nodes have a position
+	 * can give a better bound by overriding this method, it must stay
+	 * consistent.
+	 * @return A cost no larger than the one of the shortest path from a to b
+	 */
+	public int lowerBound(int a, int b) {
+		if (width == 0)
+			return 0;
+		return minWeight * (Math.abs(a % width - b % width) + Math.abs(a / width - b / width));
+	}
+
+	/**
+	 * @return The size of the arrays, in bytes
+	 */
+	public long bytes() {
+		long ints = offsets.length + neighbors.length + (weights == null ? 0 : weights.length);
+		return 4 * ints;
+	}
+
+	// Directions, in the order north, south, east, west
+	private static final int[] OPEN = { MazeContainer.OPEN_NORTH, MazeContainer.OPEN_SOUTH,
+			MazeContainer.OPEN_EAST, MazeContainer.OPEN_WEST };
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { -1, 1, 0, 0 };
+
+	/**
+	 * Builds the graph of a maze and compares a full wave over the graph with
+	 * the same wave decoding the cells
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+
+		long start = System.nanoTime();
+		MazeGraph graph = new MazeGraph(mc);
+		System.out.println(String.format("%dx%d, graph built in %.1f ms, %d edges, %.1f MB", size, size,
+				(System.nanoTime() - start) / 1e6, graph.edges(), graph.bytes() / 1e6));
+
+		int n = graph.nodes;
+		int[] distance = new int[n], queue = new int[n];
+		long cellsTime = 0, graphTime = 0, check = 0;
+
+		for (int r = 0; r <= runs; r++) {
+			// From the cells
+			start = System.nanoTime();
+			Arrays.fill(distance, -1);
+			int head = 0, tail = 0;
+			queue[tail++] = 0;
+			distance[0] = 0;
+			while (head < tail) {
+				int cell = queue[head++];
+				int cx = cell % size, cy = cell / size;
+				int passages = mc.getCell(cell);
+				for (int dir = 0; dir < 4; dir++) {
+					if ((passages & OPEN[dir]) == 0)
+						continue;
+					int nb = (cy + DY[dir]) * size + cx + DX[dir];
+					if (distance[nb] < 0) {
+						distance[nb] = distance[cell] + 1;
+						queue[tail++] = nb;
+					}
+				}
+			}
+			long cellsRun = System.nanoTime() - start;
+			check += distance[n - 1];
+
+			// From the graph
+			start = System.nanoTime();
+			Arrays.fill(distance, -1);
+			head = tail = 0;
+			queue[tail++] = 0;
+			distance[0] = 0;
+			int[] offsets = graph.offsets, neighbors = graph.neighbors;
+			while (head < tail) {
+				int cell = queue[head++];
+				for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+					int nb = neighbors[e];
+					if (distance[nb] < 0) {
+						distance[nb] = distance[cell] + 1;
+						queue[tail++] = nb;
+					}
+				}
+			}
+			long graphRun = System.nanoTime() - start;
+			check -= distance[n - 1];
+
+			// The first run warms up
+			if (r > 0) {
+				cellsTime += cellsRun;
+				graphTime += graphRun;
+			}
+		}
+
+		System.out.println(String.format("Full wave : cells %.1f ms, graph %.1f ms%s", cellsTime / 1e6 / runs,
+				graphTime / 1e6 / runs, check == 0 ? "" : " (distances differ !)"));
+	}
+}
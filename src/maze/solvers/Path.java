@@ -0,0 +1,217 @@
+package maze.solvers;
+
+import java.util.Arrays;
+
+import maze.data.MazeContainer;
+import maze.data.MazeUtils.Direction;
+
+/**
+ * A path in a maze, from a start cell to a goal cell
+ *
+ * The cells are kept in order as their indices (see
+ * {@link MazeContainer#index(int, int)}), which only costs the length of the
+ * path whatever the size of the maze. Two other views are built when they are
+ * first asked for : the moves grouped in runs going the same
+ * {@link Direction}, which is the most compact form to store or send, and a
+ * bitset of the cells of the maze, to draw the path over the maze.
+ *
+ * @version 1.0
+ */
+public class Path {
+	private final int width, height;
+
+	// The cells, from the start to the goal
+	private final int[] cells;
+
+	// The runs, the direction (its ordinal) in the two low bits, the number of moves above
+	private int[] runs;
+
+	// One bit per cell of the maze, set along the path
+	private long[] bits;
+
+	/**
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @param cells The cells of the path, from the start to the goal, each
+	 *            one next to the previous one
+	 */
+	public Path(int width, int height, int[] cells) {
+		if (cells.length == 0)
+			throw new IllegalArgumentException("A path has at least one cell");
+		this.width = width;
+		this.height = height;
+		this.cells = cells;
+	}
+
+	/**
+	 * Rebuilds a path from its runs
+	 * @param width The width of the maze
+	 * @param height The height of the maze
+	 * @param start The first cell
+	 * @param runs The runs, as given by {@link #encode()}
+	 * @return The path
+	 */
+	public static Path decode(int width, int height, int start, int[] runs) {
+		int length = 0;
+		for (int run : runs)
+			length += run >>> 2;
+
+		int[] cells = new int[length + 1];
+		cells[0] = start;
+		int i = 0;
+		for (int run : runs) {
+			int step = step(Direction.values()[run & 3], width);
+			for (int k = run >>> 2; k > 0; k--, i++)
+				cells[i + 1] = cells[i] + step;
+		}
+
+		Path path = new Path(width, height, cells);
+		path.runs = runs.clone();
+		return path;
+	}
+
+	/**
+	 * @return The number of moves from the start to the goal
+	 */
+	public int length() {
+		return cells.length - 1;
+	}
+
+	/**
+	 * @param i The position in the path, 0 for the start
+	 * @return The cell at this position
+	 */
+	public int cell(int i) {
+		return cells[i];
+	}
+
+	public int x(int i) {
+		return cells[i] % width;
+	}
+
+	public int y(int i) {
+		return cells[i] / width;
+	}
+
+	public int start() {
+		return cells[0];
+	}
+
+	public int goal() {
+		return cells[cells.length - 1];
+	}
+
+	/**
+	 * @return A copy of the cells, from the start to the goal
+	 */
+	public int[] cells() {
+		return cells.clone();
+	}
+
+	/**
+	 * @return True if the path goes through (x, y)
+	 */
+	public boolean contains(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			return false;
+		return contains(y * width + x);
+	}
+
+	/**
+	 * @return True if the path goes through a cell
+	 */
+	public boolean contains(int cell) {
+		if (bits == null) {
+			long[] set = new long[(width * height + 63) >>> 6];
+			for (int c : cells)
+				set[c >>> 6] |= 1L << c;
+			bits = set;
+		}
+		return (bits[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * @return The number of runs of moves in the same direction
+	 */
+	public int runs() {
+		return encoded().length;
+	}
+
+	public Direction runDirection(int r) {
+		return Direction.values()[encoded()[r] & 3];
+	}
+
+	public int runLength(int r) {
+		return encoded()[r] >>> 2;
+	}
+
+	/**
+	 * @return The runs of moves in the same direction, one int per run : the
+	 *         ordinal of the {@link Direction} in the two low bits, the number of
+	 *         moves above. See {@link #decode(int, int, int, int[])}.
+	 */
+	public int[] encode() {
+		return encoded().clone();
+	}
+
+	private int[] encoded() {
+		if (runs == null) {
+			int[] r = new int[Math.max(1, cells.length / 2)];
+			int count = 0, last = -1;
+			for (int i = 1; i < cells.length; i++) {
+				int dir = direction(cells[i - 1], cells[i]).ordinal();
+				if (dir == last) {
+					r[count - 1] += 4;
+				} else {
+					if (count == r.length)
+						r = Arrays.copyOf(r, 2 * count);
+					r[count++] = 4 | dir;
+					last = dir;
+				}
+			}
+			runs = Arrays.copyOf(r, count);
+		}
+		return runs;
+	}
+
+	/**
+	 * @return The direction of a move between two neighbouring cells
+	 */
+	private Direction direction(int from, int to) {
+		int d = to - from;
+		if (d == -width)
+			return Direction.UP;
+		if (d == width)
+			return Direction.DOWN;
+		if (d == 1 && to % width != 0)
+			return Direction.RIGHT;
+		if (d == -1 && from % width != 0)
+			return Direction.LEFT;
+		throw new IllegalStateException("Cells " + from + " and " + to + " are not neighbours");
+	}
+
+	private static int step(Direction dir, int width) {
+		switch (dir) {
+		case UP:
+			return -width;
+		case DOWN:
+			return width;
+		case RIGHT:
+			return 1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * @return The start and the runs, for instance "(0, 0) DOWN 3 RIGHT 2"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append('(').append(x(0)).append(", ").append(y(0)).append(')');
+		for (int r = 0; r < runs(); r++)
+			sb.append(' ').append(runDirection(r)).append(' ').append(runLength(r));
+		return sb.toString();
+	}
+}
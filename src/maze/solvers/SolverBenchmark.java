@@ -0,0 +1,125 @@
+package maze.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import maze.data.MazeContainer;
+
+/**
+ * Compares the search modes of {@link AStar} on the same mazes : number of
+ * cells expanded and wall-clock time, averaged over several mazes.
+ *
+ * Usage : {@code java maze.solvers.SolverBenchmark [size...] [algorithm...]}
+ * where the sizes are the side of square mazes (default 500, 1000 and 2000)
+ * and the algorithms are maze generators (default backtracker and kruskal).
+ *
+ * {@code java maze.solvers.SolverBenchmark scaling [size]} gives the scaling of
+ * {@link AStar.Mode#PARALLEL_LEE} from 1 thread to the number of cores instead.
+ *
+ * @version 1.3
+ */
+public class SolverBenchmark {
+	private static final int MAZES = 5;
+
+	// Shared by all the runs, as a program solving many mazes would do
+	private static final SolverContext CONTEXT = new SolverContext();
+
+	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("scaling")) {
+			scaling(args.length > 1 ? Integer.parseInt(args[1]) : 4000);
+			return;
+		}
+
+		List<Integer> sizes = new ArrayList<>();
+		List<String> generators = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.matches("\\d+"))
+				sizes.add(Integer.parseInt(arg));
+			else
+				generators.add(arg);
+		}
+		if (sizes.isEmpty())
+			sizes = List.of(500, 1000, 2000);
+		if (generators.isEmpty())
+			generators = List.of("backtracker", "kruskal");
+
+		// Warm-up
+		MazeContainer small = new MazeContainer(200, 200);
+		for (int i = 0; i < 20; i++)
+			for (AStar.Mode mode : AStar.Mode.values())
+				run(small, mode);
+
+		System.out.println("    generator |        size |          mode |  expanded (avg) |   time (ms) | path length");
+		for (String generator : generators) {
+			for (int size : sizes) {
+				MazeContainer[] mazes = new MazeContainer[MAZES];
+				for (int i = 0; i < MAZES; i++) {
+					mazes[i] = new MazeContainer(size, size, i, generator);
+					// The graphs are built once per maze, not by the first mode timed
+					MazeGraph.of(mazes[i]);
+					LandmarkGraph.of(mazes[i]);
+				}
+
+				for (AStar.Mode mode : AStar.Mode.values()) {
+					long expanded = 0, time = 0, length = 0;
+					for (MazeContainer mc : mazes) {
+						long start = System.nanoTime();
+						AStar alg = run(mc, mode);
+						time += System.nanoTime() - start;
+						expanded += alg.expanded;
+						length += pathLength(alg);
+					}
+					System.out.println(String.format("%13s | %11s | %13s | %15d | %11.2f | %11d", generator,
+							size + "x" + size, mode, expanded / MAZES, time / 1e6 / MAZES, length / MAZES));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solves the same Kruskal maze with the parallel wave on 1, 2, 4... threads
+	 * up to the number of cores, and checks the path is the sequential one
+	 */
+	private static void scaling(int size) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		List<Integer> threadCounts = new ArrayList<>();
+		for (int t = 1; t < cores; t *= 2)
+			threadCounts.add(t);
+		threadCounts.add(cores);
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+		AStar sequential = run(mc, AStar.Mode.LEE);
+		int reference = Arrays.deepHashCode(sequential.solution());
+
+		System.out.println("threads |   time (ms) | speed-up | same path");
+		double first = 0;
+		for (int threads : threadCounts) {
+			AStar alg = new AStar(mc, threads);
+			alg.find(0, 0, AStar.Mode.PARALLEL_LEE);
+
+			long start = System.nanoTime();
+			alg.find(0, 0, AStar.Mode.PARALLEL_LEE);
+			double time = (System.nanoTime() - start) / 1e6;
+			if (first == 0)
+				first = time;
+
+			System.out.println(String.format("%7d | %11.2f | %8.2f | %s", threads, time, first / time,
+					Arrays.deepHashCode(alg.solution()) == reference));
+		}
+	}
+
+	private static AStar run(MazeContainer mc, AStar.Mode mode) {
+		AStar alg = new AStar(mc, CONTEXT);
+		alg.find(0, 0, mode);
+		return alg;
+	}
+
+	private static long pathLength(AStar alg) {
+		long length = 0;
+		for (int[] column : alg.solution())
+			for (int v : column)
+				length += v;
+		return length;
+	}
+}
@@ -0,0 +1,224 @@
+package maze.solvers;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The working memory of a search, kept from one search to the next.
+ *
+ * The arrays are flat, one entry per cell (see
+ * {@link maze.data.MazeContainer#index(int, int)}) or per node of a
+ * {@link MazeGraph}, and only grow when a larger maze is solved. They are never cleared : every search has its own
+ * epoch and a cell only holds a label if it was stamped with the current
+ * epoch, so starting a new search costs nothing. Repeated searches with the
+ * same context do not allocate anything.
+ *
+ * The path found by the last search stays in the context until the next one.
+ * A context must not be shared between threads.
+ *
+ * @version 1.3
+ */
+public class SolverContext {
+	// The current search
+	private int epoch;
+
+	// The epoch a cell was labelled (or closed) in, and its label
+	private int[] mark = new int[0], closed = new int[0];
+	int[] label = new int[0];
+
+	// The previous cell of the path, see AStar
+	int[] parent = new int[0];
+
+	// The wave fronts, as lists or as a ring buffer
+	final IntList[] current = { new IntList(), new IntList() };
+	final IntList[] next = { new IntList(), new IntList() };
+	int[] queue = new int[64];
+	int head, size;
+
+	// The open cells of A*
+	IndexedMinHeap heap;
+
+	// The open cells of Dial's algorithm, see DialSolver
+	private IntList[] buckets = new IntList[0];
+
+	// The epoch a cell was reached in by the parallel wave, set by compare-and-set
+	private AtomicIntegerArray reached;
+
+	// The fronts of the parallel wave, and the cells reached by each chunk of a front
+	int[] front = new int[64], following = new int[64];
+	private IntList[] parts = new IntList[0];
+
+	// The cells of the last path, from the start to the goal
+	private int[] path = new int[64];
+	private int length = -1;
+
+	// The number of cells expanded by the last search
+	long expanded;
+
+	/**
+	 * Starts a new search, all the cells are unlabelled
+	 * @param cells The number of cells of the maze
+	 */
+	void begin(int cells) {
+		if (mark.length < cells) {
+			mark = new int[cells];
+			closed = new int[cells];
+			label = new int[cells];
+			parent = new int[cells];
+			heap = null;
+			reached = null;
+			epoch = 0;
+		}
+
+		// Once every 2^32 searches the stamps have to be cleared
+		if (++epoch == 0) {
+			Arrays.fill(mark, 0);
+			Arrays.fill(closed, 0);
+			reached = null;
+			epoch = 1;
+		}
+
+		head = size = 0;
+		length = -1;
+		expanded = 0;
+	}
+
+	/**
+	 * @return The current search, the stamp of the cells it reaches
+	 */
+	int epoch() {
+		return epoch;
+	}
+
+	boolean labelled(int cell) {
+		return mark[cell] == epoch;
+	}
+
+	/**
+	 * @return The label of a cell, 0 if it has none
+	 */
+	int label(int cell) {
+		return mark[cell] == epoch ? label[cell] : 0;
+	}
+
+	void setLabel(int cell, int value) {
+		mark[cell] = epoch;
+		label[cell] = value;
+	}
+
+	boolean isClosed(int cell) {
+		return closed[cell] == epoch;
+	}
+
+	void close(int cell) {
+		closed[cell] = epoch;
+	}
+
+	/**
+	 * @return The heap for A*, empty
+	 */
+	IndexedMinHeap heap() {
+		if (heap == null)
+			heap = new IndexedMinHeap(mark.length);
+		heap.clear();
+		return heap;
+	}
+
+	/**
+	 * @return The epochs the cells were reached in by the parallel wave, only
+	 *         the ones equal to {@link #epoch()} belong to this search
+	 */
+	AtomicIntegerArray reached() {
+		if (reached == null)
+			reached = new AtomicIntegerArray(mark.length);
+		return reached;
+	}
+
+	/**
+	 * @param count The number of chunks of the front
+	 * @return The lists of the cells reached by each chunk
+	 */
+	IntList[] parts(int count) {
+		if (parts.length < count) {
+			int old = parts.length;
+			parts = Arrays.copyOf(parts, count);
+			for (int i = old; i < count; i++)
+				parts[i] = new IntList(2 * AStar.CHUNK);
+		}
+		return parts;
+	}
+
+	/**
+	 * @param count The number of buckets needed
+	 * @return The buckets for Dial's algorithm, empty
+	 */
+	IntList[] buckets(int count) {
+		if (buckets.length < count) {
+			int old = buckets.length;
+			buckets = Arrays.copyOf(buckets, count);
+			for (int i = old; i < count; i++)
+				buckets[i] = new IntList();
+		}
+		for (IntList bucket : buckets)
+			bucket.clear();
+		return buckets;
+	}
+
+	void push(int cell) {
+		if (size == queue.length) {
+			// Grow the ring, unwrapping it
+			int[] grown = new int[size * 2];
+			for (int k = 0; k < size; k++)
+				grown[k] = queue[(head + k) & (size - 1)];
+			queue = grown;
+			head = 0;
+		}
+		queue[(head + size++) & (queue.length - 1)] = cell;
+	}
+
+	int poll() {
+		int cell = queue[head];
+		head = (head + 1) & (queue.length - 1);
+		size--;
+		return cell;
+	}
+
+	/**
+	 * Makes room for a path
+	 * @param steps The number of steps of the path, -1 if there is none
+	 */
+	void setPathLength(int steps) {
+		if (steps + 1 > path.length)
+			path = new int[Math.max(steps + 1, 2 * path.length)];
+		length = steps;
+	}
+
+	void setPathCell(int i, int cell) {
+		path[i] = cell;
+	}
+
+	/**
+	 * @return The number of steps of the last path, -1 if no path was found
+	 */
+	public int pathLength() {
+		return length;
+	}
+
+	/**
+	 * @param i The position in the path, from 0 (the start) to
+	 *            {@link #pathLength()} (the goal)
+	 * @return The cell at this position
+	 */
+	public int pathCell(int i) {
+		if (i < 0 || i > length)
+			throw new IndexOutOfBoundsException("No cell " + i + " in a path of " + length + " steps");
+		return path[i];
+	}
+
+	/**
+	 * @return A copy of the cells of the last path, from the start to the goal
+	 */
+	public int[] path() {
+		return length < 0 ? null : Arrays.copyOf(path, length + 1);
+	}
+}
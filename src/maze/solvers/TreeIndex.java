@@ -0,0 +1,259 @@
+package maze.solvers;
+
+import java.util.Random;
+
+import maze.data.MazeContainer;
+
+/**
+ * Path queries on a perfect maze, without any search.
+ *
+ * The passages of a perfect maze form a tree, so there is a single path
+ * between two cells, going through their lowest common ancestor. The tree is
+ * rooted once at the top left cell, the cells are numbered in depth-first
+ * order and the parent of each cell is kept. The lowest common ancestor of
+ * two cells u and v (numbered tin(u) < tin(v)) is then the parent of the
+ * shallowest cell numbered in (tin(u), tin(v)], found by a range minimum query :
+ * a sparse table over blocks of {@value #BLOCK} cells, plus a scan of the two
+ * partial blocks at the ends.
+ *
+ * The length of a path costs a constant time, the path itself costs its
+ * length.
+ *
+ * @version 1.1
+ */
+public class TreeIndex {
+	// The number of cells of a block of the range minimum queries
+	private static final int BLOCK = 32;
+
+	// The cells in depth-first order, and their depth
+	private final int[] order, depthAt;
+
+	// The position of each cell in the depth-first order
+	private final int[] tin;
+
+	// The parent of each cell, -1 for the root
+	private final int[] parent;
+
+	// sparse[k][b] : position of the shallowest cell in blocks b to b + 2^k - 1
+	private final int[][] sparse;
+
+	/**
+	 * Builds the index, the maze must not change afterwards
+	 * @param mc A perfect maze
+	 * @throws IllegalArgumentException if the maze is not perfect
+	 */
+	public TreeIndex(MazeContainer mc) {
+		this(MazeGraph.of(mc));
+	}
+
+	/**
+	 * Builds the index of a graph
+	 * @param graph A tree, each edge given in both directions
+	 * @throws IllegalArgumentException if the graph is not a tree
+	 */
+	public TreeIndex(MazeGraph graph) {
+		int n = graph.nodes;
+		int[] offsets = graph.offsets, neighbors = graph.neighbors;
+
+		// Each passage is seen from both sides
+		if (graph.edges() != 2L * (n - 1))
+			throw new IllegalArgumentException("The maze is not perfect");
+
+		order = new int[n];
+		depthAt = new int[n];
+		tin = new int[n];
+		parent = new int[n];
+
+		/**
+		 * Depth-first numbering, a cell is numbered when it is popped and its
+		 * children pushed, so that every subtree is numbered contiguously
+		 */
+		IntList stack = new IntList();
+		stack.add(0);
+		parent[0] = -1;
+		int count = 0;
+
+		while (stack.size > 0) {
+			// A cell reached twice, there is a loop
+			if (count == n)
+				throw new IllegalArgumentException("The maze is not perfect");
+
+			int cell = stack.data[--stack.size];
+
+			tin[cell] = count;
+			order[count] = cell;
+			depthAt[count] = cell == 0 ? 0 : depthAt[tin[parent[cell]]] + 1;
+			count++;
+
+			for (int e = offsets[cell]; e < offsets[cell + 1]; e++) {
+				int child = neighbors[e];
+				if (child == parent[cell])
+					continue;
+
+				parent[child] = cell;
+				stack.add(child);
+			}
+		}
+
+		if (count != n)
+			throw new IllegalArgumentException("The maze is not perfect");
+
+		sparse = buildSparseTable(n);
+	}
+
+	private int[][] buildSparseTable(int n) {
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		int levels = 32 - Integer.numberOfLeadingZeros(blocks);
+		int[][] table = new int[levels][];
+
+		table[0] = new int[blocks];
+		for (int b = 0; b < blocks; b++)
+			table[0][b] = scan(b * BLOCK, Math.min(n, (b + 1) * BLOCK) - 1);
+
+		for (int k = 1; k < levels; k++) {
+			int half = 1 << (k - 1);
+			table[k] = new int[blocks - (1 << k) + 1];
+			for (int b = 0; b < table[k].length; b++)
+				table[k][b] = shallowest(table[k - 1][b], table[k - 1][b + half]);
+		}
+		return table;
+	}
+
+	/**
+	 * @return The position of the shallowest cell in [from, to]
+	 */
+	private int scan(int from, int to) {
+		int best = from;
+		for (int i = from + 1; i <= to; i++)
+			if (depthAt[i] < depthAt[best])
+				best = i;
+		return best;
+	}
+
+	private int shallowest(int a, int b) {
+		return depthAt[b] < depthAt[a] ? b : a;
+	}
+
+	/**
+	 * @return The position of the shallowest cell in [from, to]
+	 */
+	private int rangeMin(int from, int to) {
+		int bf = from / BLOCK, bt = to / BLOCK;
+		if (bf == bt)
+			return scan(from, to);
+
+		int best = shallowest(scan(from, (bf + 1) * BLOCK - 1), scan(bt * BLOCK, to));
+		if (bt - bf > 1) {
+			int k = 31 - Integer.numberOfLeadingZeros(bt - bf - 1);
+			best = shallowest(best, sparse[k][bf + 1]);
+			best = shallowest(best, sparse[k][bt - (1 << k)]);
+		}
+		return best;
+	}
+
+	/**
+	 * @param a A cell, see {@link MazeContainer#index(int, int)}
+	 * @param b Another cell
+	 * @return Their lowest common ancestor, the tree being rooted at cell 0
+	 */
+	public int lca(int a, int b) {
+		if (a == b)
+			return a;
+		int ta = tin[a], tb = tin[b];
+		int p = rangeMin(Math.min(ta, tb) + 1, Math.max(ta, tb));
+		int cell = order[p];
+		return parent[cell];
+	}
+
+	/**
+	 * @return The depth of a cell in the tree
+	 */
+	public int depth(int cell) {
+		return depthAt[tin[cell]];
+	}
+
+	/**
+	 * @param a A cell, see {@link MazeContainer#index(int, int)}
+	 * @param b Another cell
+	 * @return The number of steps between both cells
+	 */
+	public int distance(int a, int b) {
+		return depth(a) + depth(b) - 2 * depth(lca(a, b));
+	}
+
+	/**
+	 * @param a The first cell, see {@link MazeContainer#index(int, int)}
+	 * @param b The last cell
+	 * @return The cells of the path from a to b, both included
+	 */
+	public int[] path(int a, int b) {
+		int top = lca(a, b);
+		int up = depth(a) - depth(top), down = depth(b) - depth(top);
+		int[] path = new int[up + down + 1];
+
+		// From a up to the common ancestor, then from b up to it, backwards
+		int cell = a;
+		for (int i = 0; i < up; i++) {
+			path[i] = cell;
+			cell = parent[cell];
+		}
+		path[up] = top;
+
+		cell = b;
+		for (int i = path.length - 1; i > up; i--) {
+			path[i] = cell;
+			cell = parent[cell];
+		}
+		return path;
+	}
+
+	/**
+	 * Builds the index of a maze and times random queries, against the Lee
+	 * wave of {@link AStar} for a few of them
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		MazeContainer mc = new MazeContainer(size, size, 1234, "kruskal");
+
+		long start = System.nanoTime();
+		TreeIndex index = new TreeIndex(mc);
+		System.out.println(String.format("%dx%d, index built in %.1f ms", size, size,
+				(System.nanoTime() - start) / 1e6));
+
+		Random rnd = new Random(1);
+		int n = size * size;
+		int[] pairs = new int[2 * queries];
+		for (int i = 0; i < pairs.length; i++)
+			pairs[i] = rnd.nextInt(n);
+
+		start = System.nanoTime();
+		long total = 0;
+		for (int q = 0; q < queries; q++)
+			total += index.distance(pairs[2 * q], pairs[2 * q + 1]);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d lengths in %.3f s (%.0f per second), average length %d", queries, seconds,
+				queries / seconds, total / queries));
+
+		// The paths are long, fewer of them
+		int paths = Math.max(1, queries / 100);
+		start = System.nanoTime();
+		long cells = 0;
+		for (int q = 0; q < paths; q++)
+			cells += index.path(pairs[2 * q], pairs[2 * q + 1]).length;
+		seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d paths in %.3f s (%.0f per second, %.1f ns per cell)", paths, seconds,
+				paths / seconds, seconds * 1e9 / cells));
+
+		// The Lee wave only goes to the exit
+		AStar lee = new AStar(mc);
+		int exit = mc.getExit(), solved = 20;
+		start = System.nanoTime();
+		for (int q = 0; q < solved; q++)
+			lee.find(pairs[q] % size, pairs[q] / size, AStar.Mode.LEE);
+		seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("Lee wave to the exit : %.0f per second (index : %d steps for the first one)",
+				solved / seconds, index.distance(pairs[0], exit)));
+	}
+}